@@ -0,0 +1,250 @@
+package analyzer;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import data.*;
+import graph.*;
+
+/**
+ * Answers a file of queries about a built movie graph without the interactive menu.
+ * Each line of the query file holds one query:
+ * <pre>
+ * stats                  statistics about the graph, as Option 1 of the menu
+ * node [movieID]         information about a movie, as Option 2
+ * path [start] [end]     shortest path between two movies, as Option 3
+ * </pre>
+ * Blank lines and lines starting with # are skipped. The queries run concurrently, each
+ * on its own virtual thread, so this class needs JDK 21 or later. Each answer is
+ * written as soon as it is done. Answers can finish in any order, so each one starts
+ * with the line number and text of its query in square brackets. A query that cannot
+ * be answered, such as one naming a movie that is not in the graph, gets an answer
+ * starting with "error:" and the rest of the batch carries on. Waits use
+ * ReentrantLock rather than synchronized, which would pin a virtual thread to its
+ * carrier thread while it waits.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class BatchQueryRunner {
+	/**
+	 * Queries in flight per core. Bounds the path finders in use and the answers
+	 * waiting to be written, however long the query file is.
+	 */
+	public static final int IN_FLIGHT_PER_CORE = 4;
+	protected final DataLoader loader;
+	protected final Graph<Integer> g;
+	protected final CSRGraph csr;
+	private final ConcurrentLinkedQueue<PathFinder> finders;//idle finders, at most one per query in flight
+	private final ReentrantLock statsLock;//held while the first stats query computes them
+	private String stats;//answer to the stats query, computed by the first one
+
+	/**
+	 * Constructor for a runner over a built graph. The graph must not change while
+	 * queries run.
+	 * @param loader data from csv files
+	 * @param g graph of movieID's the queries are about
+	 */
+	public BatchQueryRunner(DataLoader loader, Graph<Integer> g) {
+		this.loader = loader;
+		this.g = g;
+		this.csr = CSRGraph.frozen(g);//the copy graphStats uses as well
+		csr.reverse();//built once here, then shared by every path finder
+		this.finders = new ConcurrentLinkedQueue<PathFinder>();
+		this.statsLock = new ReentrantLock();
+	}
+
+	/**
+	 * Answers every query of a file and writes the answers to another.
+	 * @param queryFile file holding one query per line
+	 * @param outputFile file the answers are written to
+	 * @return number of queries answered
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public int run(String queryFile, String outputFile) throws IOException {
+		try(BufferedReader queries = new BufferedReader(new FileReader(queryFile));
+				Writer out = new BufferedWriter(new FileWriter(outputFile))) {
+			return run(queries, out);
+		}
+	}
+
+	/**
+	 * Answers every query read from a reader, writing each answer to out as soon as
+	 * it is done. Returns once every answer has been written.
+	 * @param queries reader of one query per line
+	 * @param out writer the answers are written to
+	 * @return number of queries answered
+	 * @throws IOException if the queries cannot be read or an answer cannot be written
+	 */
+	public int run(BufferedReader queries, Writer out) throws IOException {
+		int limit = IN_FLIGHT_PER_CORE * Runtime.getRuntime().availableProcessors();
+		Semaphore inFlight = new Semaphore(limit);
+		AtomicReference<IOException> failure = new AtomicReference<IOException>();
+		ReentrantLock outLock = new ReentrantLock();//one answer is written at a time
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		int count = 0;
+		try {
+			int lineNumber = 0;
+			String line;
+			while(failure.get() == null && (line = queries.readLine()) != null) {
+				lineNumber++;
+				String query = line.trim();
+				if(query.isEmpty() || query.startsWith("#")) {
+					continue;
+				}
+				inFlight.acquire();
+				String header = "[" + lineNumber + "] " + query + System.lineSeparator();
+				executor.execute(() -> {
+					try {
+						write(out, outLock, header + answer(query));
+					}catch(IOException e) {
+						failure.compareAndSet(null, e);
+					}finally {
+						inFlight.release();
+					}
+				});
+				count++;
+			}
+			inFlight.acquire(limit);//every answer has been written
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}finally {
+			executor.shutdownNow();
+		}
+		if(failure.get() != null) {
+			throw failure.get();
+		}
+		return count;
+	}
+
+	/**
+	 * Answers one query. Safe to call from several threads at once.
+	 * @param query a line of a query file
+	 * @return the answer, one or more lines each ending in a line separator
+	 */
+	public String answer(String query) {
+		try {
+			String[] words = query.trim().split("\\s+");
+			if(words[0].equals("stats") && words.length == 1) {
+				return stats();
+			}
+			if(words[0].equals("node") && words.length == 2) {
+				return node(Integer.parseInt(words[1]));
+			}
+			if(words[0].equals("path") && words.length == 3) {
+				return path(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+			}
+			throw new IllegalArgumentException("Unknown query, expected stats, node [movieID] or path [start] [end]");
+		}catch(IllegalArgumentException e) {
+			return "error: " + e.getMessage() + System.lineSeparator();
+		}catch(RuntimeException e) {
+			return "error: " + e + System.lineSeparator();
+		}
+	}
+
+	/**
+	 * Returns the statistics about the graph. They take one search per movie, so
+	 * they are computed by the first stats query and reused by the rest.
+	 * @return the statistics as printed by Option 1
+	 */
+	private String stats() {
+		statsLock.lock();
+		try {
+			if(stats == null) {
+				stats = printed(out -> MovieLensAnalyzer.graphStats(g, out));
+			}
+			return stats;
+		}finally {
+			statsLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the information about a movie.
+	 * @param movieID the movie asked about
+	 * @return the information as printed by Option 2
+	 * @throws IllegalArgumentException if the movie is not in the graph
+	 */
+	private String node(int movieID) {
+		checkMovie(movieID);
+		return printed(out -> MovieLensAnalyzer.nodeStats(loader, g, movieID, out));
+	}
+
+	/**
+	 * Returns a shortest path between two movies, found with an idle path finder or a
+	 * new one if every finder is busy.
+	 * @param start movieID the path starts at
+	 * @param end movieID the path ends at
+	 * @return the path as printed by Option 3
+	 * @throws IllegalArgumentException if either movie is not in the graph
+	 */
+	private String path(int start, int end) {
+		checkMovie(start);
+		checkMovie(end);
+		PathFinder finder = finders.poll();
+		if(finder == null) {
+			finder = new PathFinder(csr);
+		}
+		int[] path;
+		try {
+			path = finder.shortestPath(start, end);
+		}finally {
+			finders.offer(finder);
+		}
+		return printed(out -> MovieLensAnalyzer.printPath(loader, path, out));
+	}
+
+	/**
+	 * Checks that a movie is in the graph.
+	 * @param movieID the movie
+	 * @throws IllegalArgumentException if it is not
+	 */
+	private void checkMovie(int movieID) {
+		if(!g.containsVertex(movieID)) {
+			throw new IllegalArgumentException("Movie " + movieID + " is not in the graph");
+		}
+	}
+
+	/**
+	 * Returns what a printing method prints.
+	 * @param printer prints to the stream it is given
+	 * @return the printed text
+	 */
+	private static String printed(Consumer<PrintStream> printer) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes);
+		printer.accept(out);
+		out.flush();
+		return bytes.toString();
+	}
+
+	/**
+	 * Writes an answer and flushes it, so that answers reach the output as they finish.
+	 * @param out writer shared by every query
+	 * @param outLock lock held while writing to out
+	 * @param text the answer
+	 * @throws IOException if it cannot be written
+	 */
+	private static void write(Writer out, ReentrantLock outLock, String text) throws IOException {
+		outLock.lock();
+		try {
+			out.write(text);
+			out.flush();
+		}finally {
+			outLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package bench;
+import java.io.IOException;
+import java.util.Random;
+import analyzer.*;
+import data.*;
+import graph.*;
+
+/**
+ * The graphs the benchmarks run on, with movie IDs 1 to n so that the ID-indexed
+ * algorithms work on them. A "random" graph has edges between uniformly random
+ * vertices. A "movielens" graph is the co-rating graph of SyntheticRatings, with the
+ * skewed degrees of the real movie graph: a dense core of popular movies and a long
+ * tail of movies with few or no neighbors.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class BenchmarkGraphs {
+	/**
+	 * Users per movie in the synthetic ratings behind the movielens graphs, about the
+	 * ratio of MovieLens 25M.
+	 */
+	public static final int USERS_PER_MOVIE = 3;
+	/**
+	 * Average number of movies each synthetic user rates.
+	 */
+	public static final int RATINGS_PER_USER = 60;
+
+	/**
+	 * Builds a graph of the given shape.
+	 * @param shape "random" or "movielens"
+	 * @param n number of vertices
+	 * @param degree average degree of a random graph, unused for movielens
+	 * @param seed seed of the random numbers
+	 * @return the graph
+	 * @throws IOException if the synthetic ratings cannot be written
+	 * @throws IllegalArgumentException if the shape is unknown
+	 */
+	public static Graph<Integer> graph(String shape, int n, int degree, long seed) throws IOException {
+		if(shape.equals("random")) {
+			return random(n, degree, seed);
+		}
+		if(shape.equals("movielens")) {
+			return CoRatingGraphBuilder.buildGraph2(ratings(n, seed));
+		}
+		throw new IllegalArgumentException(shape);
+	}
+
+	/**
+	 * Builds a directed graph with random edges.
+	 * @param n number of vertices
+	 * @param degree average outdegree
+	 * @param seed seed of the random numbers
+	 * @return the graph
+	 */
+	public static Graph<Integer> random(int n, int degree, long seed) {
+		Random random = new Random(seed);
+		Graph<Integer> g = new Graph<Integer>();
+		for(int v=1; v<=n; v++) {
+			g.addVertex(v);
+		}
+		for(long e=0; e<(long)n*degree; e++) {
+			g.addEdge(1 + random.nextInt(n), 1 + random.nextInt(n));
+		}
+		return g;
+	}
+
+	/**
+	 * Loads MovieLens-shaped synthetic ratings for a number of movies.
+	 * @param movies number of movies
+	 * @param seed seed of the random numbers
+	 * @return a loader holding the ratings
+	 * @throws IOException if the ratings cannot be written
+	 */
+	public static DataLoader ratings(int movies, long seed) throws IOException {
+		return SyntheticRatings.load(movies, movies*USERS_PER_MOVIE, RATINGS_PER_USER, seed);
+	}
+}
@@ -0,0 +1,222 @@
+package bench;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Times the benchmarks of this package with nothing but the JDK. A benchmark runs
+ * WARMUP_ITERATIONS iterations that are thrown away, so that the JIT compiler has
+ * settled, and then MEASUREMENT_ITERATIONS that are reported. Every iteration calls
+ * the benchmark over and over for at least ITERATION_NANOS, and every result is
+ * folded into a volatile field so that the calls cannot be optimized away. The
+ * results are printed one line per benchmark.
+ * <p>
+ * Each benchmark class has a main method that runs all its benchmarks over all its
+ * parameters. Arguments to main select benchmarks: only those whose name contains one
+ * of the arguments run. Run them with the JVM options the class doc names, for
+ * example --add-modules jdk.incubator.vector for the intersection kernels.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class BenchmarkRunner {
+	/**
+	 * Iterations run before measuring.
+	 */
+	public static final int WARMUP_ITERATIONS = 3;
+	/**
+	 * Iterations measured and reported.
+	 */
+	public static final int MEASUREMENT_ITERATIONS = 5;
+	/**
+	 * Least time each iteration keeps calling the benchmark.
+	 */
+	public static final long ITERATION_NANOS = 500000000L;
+	private static volatile int sink;//every result goes here, so the JIT must compute it
+
+	/**
+	 * A benchmark method.
+	 */
+	public interface Benchmark {
+		/**
+		 * Runs the benchmark once.
+		 * @return the result, which is kept from being optimized away
+		 * @throws Exception if the benchmark fails
+		 */
+		Object run() throws Exception;
+	}
+
+	/**
+	 * Tells whether a benchmark is selected by the arguments of main.
+	 * @param args arguments of main, none selects everything
+	 * @param name name of the benchmark
+	 * @return true if it should run
+	 */
+	public static boolean selected(String[] args, String name) {
+		if(args.length == 0) {
+			return true;
+		}
+		for(String arg : args) {
+			if(name.contains(arg)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Measures the average time of one call of a benchmark and prints it with the
+	 * fastest iteration, unless the benchmark is not selected.
+	 * @param args arguments of main
+	 * @param name name printed with the result, with its parameters
+	 * @param unit unit the time is printed in
+	 * @param benchmark the benchmark
+	 * @throws Exception if the benchmark fails
+	 */
+	public static void averageTime(String[] args, String name, TimeUnit unit, Benchmark benchmark) throws Exception {
+		if(!selected(args, name)) {
+			return;
+		}
+		for(int i=0; i<WARMUP_ITERATIONS; i++) {
+			iteration(benchmark);
+		}
+		double total = 0;
+		double best = Double.MAX_VALUE;
+		for(int i=0; i<MEASUREMENT_ITERATIONS; i++) {
+			double nanos = iteration(benchmark);
+			total += nanos;
+			best = Math.min(best, nanos);
+		}
+		double perUnit = unit.toNanos(1);
+		System.out.printf("%-70s %12.3f %s/op  (best %.3f)%n", name, total / MEASUREMENT_ITERATIONS / perUnit,
+				unitName(unit), best / perUnit);
+	}
+
+	/**
+	 * Measures how many calls per microsecond a group of threads makes when some
+	 * threads run one benchmark and the others another at the same time, and prints
+	 * the two rates, unless the group is not selected.
+	 * @param args arguments of main
+	 * @param name name printed with the result
+	 * @param setUp run before every iteration, with no benchmark thread running
+	 * @param readers number of threads running read
+	 * @param read benchmark of the first kind of thread
+	 * @param writers number of threads running write
+	 * @param write benchmark of the second kind of thread
+	 * @throws Exception if a benchmark fails or the threads are interrupted
+	 */
+	public static void groupThroughput(String[] args, String name, Runnable setUp, int readers, Benchmark read,
+			int writers, Benchmark write) throws Exception {
+		if(!selected(args, name)) {
+			return;
+		}
+		for(int i=0; i<WARMUP_ITERATIONS; i++) {
+			groupIteration(setUp, readers, read, writers, write);
+		}
+		double reads = 0;
+		double writes = 0;
+		for(int i=0; i<MEASUREMENT_ITERATIONS; i++) {
+			double[] rates = groupIteration(setUp, readers, read, writers, write);
+			reads += rates[0];
+			writes += rates[1];
+		}
+		System.out.printf("%-70s %12.3f reads/us %12.3f writes/us%n", name, reads / MEASUREMENT_ITERATIONS,
+				writes / MEASUREMENT_ITERATIONS);
+	}
+
+	/**
+	 * Calls a benchmark for at least ITERATION_NANOS.
+	 * @param benchmark the benchmark
+	 * @return average nanoseconds per call
+	 * @throws Exception if the benchmark fails
+	 */
+	private static double iteration(Benchmark benchmark) throws Exception {
+		long calls = 0;
+		long start = System.nanoTime();
+		long now;
+		do {
+			consume(benchmark.run());
+			calls++;
+			now = System.nanoTime();
+		}while(now - start < ITERATION_NANOS);
+		return (now - start) / (double) calls;
+	}
+
+	/**
+	 * Runs the threads of a group for ITERATION_NANOS.
+	 * @return calls per microsecond of all readers and of all writers
+	 * @throws Exception if a benchmark fails or the threads are interrupted
+	 */
+	private static double[] groupIteration(Runnable setUp, int readers, Benchmark read, int writers,
+			Benchmark write) throws Exception {
+		setUp.run();
+		AtomicBoolean running = new AtomicBoolean(true);
+		long[] calls = new long[readers + writers];
+		Exception[] failure = new Exception[1];
+		Thread[] threads = new Thread[readers + writers];
+		for(int t=0; t<threads.length; t++) {
+			final int index = t;
+			final Benchmark benchmark = t < readers ? read : write;
+			threads[t] = new Thread(() -> {
+				try {
+					long count = 0;
+					while(running.get()) {
+						consume(benchmark.run());
+						count++;
+					}
+					calls[index] = count;
+				}catch(Exception e) {
+					synchronized(failure) {
+						failure[0] = e;
+					}
+				}
+			});
+		}
+		long start = System.nanoTime();
+		for(Thread thread : threads) {
+			thread.start();
+		}
+		Thread.sleep(ITERATION_NANOS / 1000000);
+		running.set(false);
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		double micros = (System.nanoTime() - start) / 1000.0;
+		synchronized(failure) {
+			if(failure[0] != null) {
+				throw failure[0];
+			}
+		}
+		long readCalls = 0;
+		long writeCalls = 0;
+		for(int t=0; t<calls.length; t++) {
+			if(t < readers) {
+				readCalls += calls[t];
+			}else {
+				writeCalls += calls[t];
+			}
+		}
+		return new double[] {readCalls / micros, writeCalls / micros};
+	}
+
+	/**
+	 * Keeps a result alive without the cost of hashing its contents.
+	 * @param result result of a benchmark call
+	 */
+	private static void consume(Object result) {
+		sink += System.identityHashCode(result);
+	}
+
+	/**
+	 * Short name of a time unit.
+	 * @param unit the unit
+	 * @return ns, us, ms or s
+	 */
+	private static String unitName(TimeUnit unit) {
+		switch(unit) {
+			case NANOSECONDS: return "ns";
+			case MICROSECONDS: return "us";
+			case MILLISECONDS: return "ms";
+			default: return "s";
+		}
+	}
+}
@@ -0,0 +1,407 @@
+package graph;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable graph stored in compressed sparse row (CSR) form. Vertices are
+ * renumbered to dense indices 0..n-1 in ascending order of their IDs, the edges
+ * leaving vertex i are targets[offsets[i]] to targets[offsets[i+1]-1], and
+ * neighbors keep the order they had in the graph that was frozen. A graph frozen
+ * with an EdgeWeight also keeps a length for every edge, otherwise every edge has
+ * length 1.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class CSRGraph implements GraphIfc<Integer> {
+	protected final int[] ids;//dense index to vertex ID, ascending
+	protected final VertexIndex index;//vertex ID to dense index
+	protected final int[] offsets;//start of each vertex's edges in targets, length n+1
+	protected final int[] targets;//dense index of each edge's end vertex
+	protected final int[] weights;//length of each edge, null if every edge has length 1
+	protected final int maxWeight;
+	private Set<Integer> vertexSet;
+	private CSRGraph reverse;
+
+	/**
+	 * Constructor for a CSR graph from its arrays. The arrays are not copied.
+	 * @param ids vertex IDs in ascending order
+	 * @param offsets edge offsets of each vertex, length ids.length+1
+	 * @param targets dense index of the end vertex of every edge
+	 */
+	protected CSRGraph(int[] ids, int[] offsets, int[] targets) {
+		this(ids, offsets, targets, null);
+	}
+
+	/**
+	 * Constructor for a weighted CSR graph from its arrays. The arrays are not copied.
+	 * @param ids vertex IDs in ascending order
+	 * @param offsets edge offsets of each vertex, length ids.length+1
+	 * @param targets dense index of the end vertex of every edge
+	 * @param weights non-negative length of every edge, or null for length 1
+	 */
+	protected CSRGraph(int[] ids, int[] offsets, int[] targets, int[] weights) {
+		this(ids, new VertexIndex(ids), offsets, targets, weights);
+	}
+
+	/**
+	 * Constructor for a weighted CSR graph that shares the ID index of another graph
+	 * with the same vertices.
+	 * @param ids vertex IDs in ascending order
+	 * @param index dense index of every ID in ids
+	 * @param offsets edge offsets of each vertex, length ids.length+1
+	 * @param targets dense index of the end vertex of every edge
+	 * @param weights non-negative length of every edge, or null for length 1
+	 */
+	protected CSRGraph(int[] ids, VertexIndex index, int[] offsets, int[] targets, int[] weights) {
+		this.ids = ids;
+		this.index = index;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		int max = targets.length > 0 ? 1 : 0;
+		if(weights != null) {
+			max = 0;
+			for(int w : weights) {
+				max = Math.max(max, w);
+			}
+		}
+		this.maxWeight = max;
+	}
+
+	/**
+	 * Freezes a graph into CSR form. Later changes to g are not seen by the
+	 * returned graph.
+	 * @param g graph of movieID's
+	 * @return an immutable copy of g
+	 */
+	public static CSRGraph freeze(Graph<Integer> g) {
+		int n = g.numVertices();
+		int[] ids = new int[n];
+		int i = 0;
+		for(Integer v : g.getVertices()) {
+			ids[i++] = v;
+		}
+		Arrays.sort(ids);
+
+		int[] offsets = new int[n+1];
+		int[] targets = new int[g.numEdges()];
+		VertexIndex index = new VertexIndex(ids);
+		int e = 0;
+		for(i=0; i<n; i++) {
+			offsets[i] = e;
+			for(Integer u : g.getNeighbors(ids[i])) {
+				targets[e++] = index.indexOf(u);
+			}
+		}
+		offsets[n] = e;
+		return new CSRGraph(ids, index, offsets, targets, null);
+	}
+
+	/**
+	 * Returns a CSR copy of a graph, freezing it only if it changed since the last
+	 * call. The copy is kept by the graph until the graph changes, so repeated
+	 * queries on an unchanged graph share one copy.
+	 * @param g graph of movieID's
+	 * @return an immutable copy of g as it is now
+	 */
+	public static CSRGraph frozen(Graph<Integer> g) {
+		synchronized(g) {
+			if(g.frozen == null || g.frozenModCount != g.modCount()) {
+				g.frozen = freeze(g);
+				g.frozenModCount = g.modCount();
+			}
+			return g.frozen;
+		}
+	}
+
+	/**
+	 * Freezes a graph into CSR form with a length on every edge.
+	 * @param g graph of movieID's
+	 * @param weight gives the length of each edge
+	 * @return an immutable weighted copy of g
+	 * @throws IllegalArgumentException if a length is negative
+	 */
+	public static CSRGraph freeze(Graph<Integer> g, EdgeWeight weight) {
+		CSRGraph unweighted = freeze(g);
+		int[] weights = new int[unweighted.targets.length];
+		for(int i=0; i<unweighted.ids.length; i++) {
+			for(int e=unweighted.offsets[i]; e<unweighted.offsets[i+1]; e++) {
+				weights[e] = weight.weight(unweighted.ids[i], unweighted.ids[unweighted.targets[e]]);
+				if(weights[e] < 0) {
+					throw new IllegalArgumentException();
+				}
+			}
+		}
+		return new CSRGraph(unweighted.ids, unweighted.index, unweighted.offsets, unweighted.targets, weights);
+	}
+
+	/**
+	 * Returns the graph with every edge turned around. It is built on first use and
+	 * shares the vertex IDs of this graph.
+	 * @return the reversed graph
+	 */
+	public CSRGraph reverse() {
+		if(reverse == null) {
+			int n = ids.length;
+			int[] reverseOffsets = new int[n+1];
+			for(int target : targets) {
+				reverseOffsets[target+1]++;
+			}
+			for(int i=0; i<n; i++) {
+				reverseOffsets[i+1] += reverseOffsets[i];
+			}
+			int[] fill = Arrays.copyOf(reverseOffsets, n);
+			int[] reverseTargets = new int[targets.length];
+			int[] reverseWeights = weights == null ? null : new int[weights.length];
+			for(int i=0; i<n; i++) {
+				for(int e=offsets[i]; e<offsets[i+1]; e++) {
+					int slot = fill[targets[e]]++;
+					reverseTargets[slot] = i;
+					if(weights != null) {
+						reverseWeights[slot] = weights[e];
+					}
+				}
+			}
+			CSRGraph r = new CSRGraph(ids, index, reverseOffsets, reverseTargets, reverseWeights);
+			r.reverse = this;
+			reverse = r;
+		}
+		return reverse;
+	}
+
+	/**
+	 * Returns the number of vertices in the graph
+	 * @return The number of vertices in the graph
+	 */
+	@Override
+	public int numVertices() {
+		return ids.length;
+	}
+
+	/**
+	 * Returns the number of edges in the graph
+	 * @return The number of edges in the graph
+	 */
+	@Override
+	public int numEdges() {
+		return targets.length;
+	}
+
+	/**
+	 * Not supported, the graph is immutable.
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported, the graph is immutable.
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void addVertex(Integer v) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported, the graph is immutable.
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void addEdge(Integer u, Integer v) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Returns the set of all vertices in the graph, in ascending order.
+	 * @return A set containing all vertices in the graph
+	 */
+	@Override
+	public Set<Integer> getVertices() {
+		if(vertexSet == null) {
+			Set<Integer> set = new LinkedHashSet<Integer>();
+			for(int id : ids) {
+				set.add(id);
+			}
+			vertexSet = Collections.unmodifiableSet(set);
+		}
+		return vertexSet;
+	}
+
+	/**
+	 * Returns the neighbors of v in the graph as a read-only view over the edge array.
+	 *
+	 * @param v An existing node in the graph
+	 * @return All neighbors of v in the graph.
+	 * @throws IllegalArgumentException if the vertex does not occur in the graph
+	 */
+	@Override
+	public List<Integer> getNeighbors(Integer v) {
+		int index = checkedIndexOf(v);
+		final int from = offsets[index];
+		final int to = offsets[index+1];
+		return new AbstractList<Integer>() {
+			@Override
+			public Integer get(int i) {
+				if(i<0 || i>=to-from) {
+					throw new IndexOutOfBoundsException();
+				}
+				return ids[targets[from+i]];
+			}
+
+			@Override
+			public int size() {
+				return to-from;
+			}
+		};
+	}
+
+	/**
+	 * Determines whether the given vertex is contained in the graph.
+	 *
+	 * @param v The vertex to be tested.
+	 * @return True if v exists in the graph, false otherwise.
+	 */
+	@Override
+	public boolean containsVertex(Integer v) {
+		return indexOf(v) >= 0;
+	}
+
+	/**
+	 * Determines whether an edge starts at v and ends at u.
+	 * @param v A node in the graph
+	 * @param u A node in the graph
+	 * @return True if an edge exists between the two vertices
+	 * @throws IllegalArgumentException if either vertex does not occur in the graph
+	 */
+	@Override
+	public boolean edgeExists(Integer v, Integer u) {
+		int from = checkedIndexOf(v);
+		int to = checkedIndexOf(u);
+		for(int e=offsets[from]; e<offsets[from+1]; e++) {
+			if(targets[e] == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the outdegree of the vertex.
+	 * @param v A vertex in the graph
+	 * @return The degree of the vertex
+	 * @throws IllegalArgumentException if the vertex does not occur in the graph
+	 */
+	@Override
+	public int degree(Integer v) {
+		return degreeOf(checkedIndexOf(v));
+	}
+
+	/**
+	 * Returns the dense index of a vertex.
+	 * @param v vertex ID
+	 * @return index of v in 0..n-1, or -1 if v is not in the graph
+	 */
+	public int indexOf(int v) {
+		return index.indexOf(v);
+	}
+
+	/**
+	 * Returns the mapping between vertex IDs and dense indices.
+	 * @return the ID index, shared with the reversed graph
+	 */
+	public VertexIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the vertex ID stored at a dense index.
+	 * @param index index in 0..n-1
+	 * @return the vertex ID
+	 */
+	public int vertexId(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * Returns the outdegree of the vertex at a dense index.
+	 * @param index index in 0..n-1
+	 * @return the degree of the vertex
+	 */
+	public int degreeOf(int index) {
+		return offsets[index+1] - offsets[index];
+	}
+
+	/**
+	 * Returns the position in the edge array of the first edge leaving a vertex. The
+	 * edges of index run from firstEdge(index) up to, but excluding, firstEdge(index+1).
+	 * @param index index in 0..n-1, or n for the end of the last vertex's edges
+	 * @return offset of the vertex's first edge
+	 */
+	public int firstEdge(int index) {
+		return offsets[index];
+	}
+
+	/**
+	 * Returns the dense index of the end vertex of an edge.
+	 * @param edge position in the edge array
+	 * @return index of the vertex the edge points to
+	 */
+	public int edgeTarget(int edge) {
+		return targets[edge];
+	}
+
+	/**
+	 * Returns the length of an edge.
+	 * @param edge position in the edge array
+	 * @return the length, 1 if the graph was frozen without weights
+	 */
+	public int edgeWeight(int edge) {
+		return weights == null ? 1 : weights[edge];
+	}
+
+	/**
+	 * Returns the length of the longest edge.
+	 * @return the largest edge length, 0 if there are no edges
+	 */
+	public int maxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * Returns a string representation of the graph in the same format as Graph.
+	 * @return A string representation of the graph
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(int i=0; i<ids.length; i++) {
+			sb.append("\n").append(ids[i]).append(": ");
+			for(int e=offsets[i]; e<offsets[i+1]; e++) {
+				sb.append(ids[targets[e]]).append(", ");
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Finds the dense index of a vertex that must be in the graph.
+	 * @param v vertex ID
+	 * @return index of v
+	 * @throws IllegalArgumentException if the vertex does not occur in the graph
+	 */
+	private int checkedIndexOf(Integer v) {
+		int index = v == null ? -1 : indexOf(v);
+		if(index < 0) {
+			throw new IllegalArgumentException();
+		}
+		return index;
+	}
+}
@@ -0,0 +1,532 @@
+package analyzer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import data.*;
+import graph.*;
+import util.Instrumentation;
+import util.Instrumentation.Counter;
+import util.Instrumentation.PhaseName;
+import util.RaterBitmap;
+import util.SortedIntersection;
+
+/**
+ * Builds the movie graphs from an inverted index of the ratings. Instead of comparing
+ * every pair of movies, each movie walks the users who rated it and counts the later
+ * movies those users also rated, so the work grows with the number of co-rated pairs
+ * rather than with the square of the number of movies. The graphs are identical to the
+ * ones built by MovieLensAnalyzer.buildGraph1 and buildGraph2, down to neighbor order.
+ * The per-movie counting can be spread over a ForkJoinPool, and the result does not
+ * depend on the number of threads.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class CoRatingGraphBuilder {
+	/**
+	 * Number of shared users two movies need to be adjacent.
+	 */
+	public static final int SHARED_USERS = 12;
+	/**
+	 * Number of raters from which buildCoViewing keeps a movie as a bitmap.
+	 */
+	public static final int BITMAP_RATERS = 4096;
+	protected int[] movieIds;//position to movie ID, in the loader's iteration order
+	protected int[] raterStart;//start of each movie's ratings in raterUsers, length M+1
+	protected int[] raterUsers;//dense index of the user behind each rating
+	protected int[] raterSlot;//where each rating sits in its user's postings
+	protected int[] postingStart;//start of each user's postings, length U+1
+	protected int[] postingMovies;//positions of the movies a user rated, ascending
+	protected int[] postingRatings;//rating code of each posting, equal codes mean equal ratings
+
+	/**
+	 * Constructor that inverts the ratings of every movie in the loader.
+	 * @param loader contains hashmaps of the movie data
+	 */
+	public CoRatingGraphBuilder(DataLoader loader) {
+		Map<Integer, Movie> movies = loader.getMovies();
+		Map<Integer, Integer> userIndex = new HashMap<Integer, Integer>();
+		Map<Object, Integer> ratingCodes = new HashMap<Object, Integer>();
+		int m = movies.size();
+		movieIds = new int[m];
+		raterStart = new int[m+1];
+		int total = 0;
+		for(Movie movie : movies.values()) {
+			total += movie.getRatings().size();
+		}
+
+		//movie-major copy of the ratings, with users and ratings turned into ints
+		raterUsers = new int[total];
+		int[] raterRatings = new int[total];
+		int[] userCount = new int[16];
+		int pos = 0;
+		int k = 0;
+		for(Movie movie : movies.values()) {
+			movieIds[pos] = movie.getMovieId();
+			raterStart[pos] = k;
+			for(Map.Entry<Integer, ?> rating : movie.getRatings().entrySet()) {
+				Integer u = userIndex.get(rating.getKey());
+				if(u == null) {
+					u = userIndex.size();
+					userIndex.put(rating.getKey(), u);
+					if(u == userCount.length) {
+						userCount = Arrays.copyOf(userCount, 2*u);
+					}
+				}
+				Integer code = ratingCodes.get(rating.getValue());
+				if(code == null) {
+					code = ratingCodes.size();
+					ratingCodes.put(rating.getValue(), code);
+				}
+				raterUsers[k] = u;
+				raterRatings[k] = code;
+				userCount[u]++;
+				k++;
+			}
+			pos++;
+		}
+		raterStart[m] = k;
+		invert(userIndex.size(), userCount, raterRatings);
+	}
+
+	/**
+	 * Constructor that inverts a columnar ratings table. Movies are taken in ascending
+	 * ID order, only movies with ratings become vertices, and two ratings are the same
+	 * when they have the same number of half stars.
+	 * @param table ratings grouped by movie
+	 */
+	public CoRatingGraphBuilder(RatingsTable table) {
+		int m = table.numMovies();
+		int total = table.size();
+		movieIds = new int[m];
+		raterStart = new int[m+1];
+		raterUsers = new int[total];
+		int[] raterRatings = new int[total];
+		int maxUser = 0;
+		for(int r=0; r<total; r++) {
+			maxUser = Math.max(maxUser, table.userId(r));
+		}
+		int[] userIndex = new int[maxUser+1];
+		Arrays.fill(userIndex, -1);
+		int[] userCount = new int[16];
+		int users = 0;
+		for(int i=0; i<m; i++) {
+			movieIds[i] = table.movieIdAt(i);
+			raterStart[i] = table.movieStart(i);
+			for(int r=table.movieStart(i); r<table.movieStart(i+1); r++) {
+				int u = userIndex[table.userId(r)];
+				if(u < 0) {
+					u = users++;
+					userIndex[table.userId(r)] = u;
+					if(u == userCount.length) {
+						userCount = Arrays.copyOf(userCount, 2*u);
+					}
+				}
+				raterUsers[r] = u;
+				raterRatings[r] = table.halfStars(r);
+				userCount[u]++;
+			}
+		}
+		raterStart[m] = total;
+		invert(users, userCount, raterRatings);
+	}
+
+	/**
+	 * Builds the user-major postings from the movie-major ratings.
+	 * @param users number of distinct users
+	 * @param userCount number of ratings of each user
+	 * @param raterRatings rating code of each movie-major rating
+	 */
+	private void invert(int users, int[] userCount, int[] raterRatings) {
+		int m = movieIds.length;
+		int total = raterUsers.length;
+		//filled in movie order so each user's list is ascending
+		postingStart = new int[users+1];
+		for(int u=0; u<users; u++) {
+			postingStart[u+1] = postingStart[u] + userCount[u];
+		}
+		int[] fill = Arrays.copyOf(postingStart, users);
+		postingMovies = new int[total];
+		postingRatings = new int[total];
+		raterSlot = new int[total];
+		for(int i=0; i<m; i++) {
+			for(int k=raterStart[i]; k<raterStart[i+1]; k++) {
+				int slot = fill[raterUsers[k]]++;
+				postingMovies[slot] = i;
+				postingRatings[slot] = raterRatings[k];
+				raterSlot[k] = slot;
+			}
+		}
+	}
+
+	/**
+	 * Static method to build the graph such that edges are only made when two movies
+	 * have 12 of the same viewers who gave the same rating
+	 * @param loader contains hashmaps of the movie data
+	 * @return the graph of movieID's
+	 */
+	public static Graph<Integer> buildGraph1(DataLoader loader) {
+		return new CoRatingGraphBuilder(loader).build(true);
+	}
+
+	/**
+	 * Static method to build the graph such that edges are only made when two movies
+	 * have 12 of the same viewers
+	 * @param loader contains hashmaps of the movie data
+	 * @return the graph of movieID's
+	 */
+	public static Graph<Integer> buildGraph2(DataLoader loader) {
+		return new CoRatingGraphBuilder(loader).build(false);
+	}
+
+	/**
+	 * Builds the graph for option 1 on the given number of threads.
+	 * @param loader contains hashmaps of the movie data
+	 * @param parallelism number of worker threads
+	 * @return the graph of movieID's
+	 */
+	public static Graph<Integer> buildGraph1(DataLoader loader, int parallelism) {
+		return new CoRatingGraphBuilder(loader).build(true, parallelism);
+	}
+
+	/**
+	 * Builds the graph for option 2 on the given number of threads.
+	 * @param loader contains hashmaps of the movie data
+	 * @param parallelism number of worker threads
+	 * @return the graph of movieID's
+	 */
+	public static Graph<Integer> buildGraph2(DataLoader loader, int parallelism) {
+		return new CoRatingGraphBuilder(loader).build(false, parallelism);
+	}
+
+	/**
+	 * Builds a graph by comparing the raters of every pair of movies, the way the
+	 * original builders do, but on a RatingsStore instead of the ratings maps. Movies
+	 * with at least bitmapRaters raters are compared as RaterBitmaps and the rest as
+	 * sorted arrays, and every comparison stops once SHARED_USERS shared users are found.
+	 * Vertices and neighbors are in ascending order of movie ID.
+	 * @param store ratings of every movie
+	 * @param sameRating true if shared users must also have given the same rating
+	 * @param bitmapRaters number of raters from which a movie is kept as a bitmap
+	 * @return the graph of movieID's
+	 */
+	public static Graph<Integer> buildCoViewing(RatingsStore store, boolean sameRating, int bitmapRaters) {
+		Instrumentation.Phase phase = Instrumentation.start(PhaseName.BUILD_GRAPH);
+		int m = store.numMovies();
+		int[] ids = new int[m];
+		int[][] users = new int[m][];
+		RaterBitmap[] bitmaps = new RaterBitmap[m];
+		for(int i=0; i<m; i++) {
+			ids[i] = store.movieIdAt(i);
+			users[i] = sameRating ? store.ratingKeys(ids[i]) : store.raters(ids[i]);
+			if(users[i].length >= bitmapRaters) {
+				bitmaps[i] = new RaterBitmap(users[i]);
+			}
+		}
+		int[][] later = new int[m][];
+		int[] found = new int[m];
+		long compared = 0;
+		for(int i=0; i<m; i++) {
+			int count = 0;
+			if(users[i].length >= SHARED_USERS) {
+				for(int j=i+1; j<m; j++) {
+					if(users[j].length >= SHARED_USERS) {
+						compared++;
+						if(sharedUsers(users, bitmaps, i, j) >= SHARED_USERS) {
+							found[count++] = j;
+						}
+					}
+				}
+			}
+			later[i] = Arrays.copyOf(found, count);
+		}
+		Counter.PAIRS_COMPARED.add(compared);
+		Graph<Integer> graph = toGraph(ids, later);
+		phase.items(m);
+		phase.close();
+		return graph;
+	}
+
+	/**
+	 * Builds the co-viewing graph with movies of BITMAP_RATERS or more raters kept as
+	 * bitmaps.
+	 * @param store ratings of every movie
+	 * @param sameRating true if shared users must also have given the same rating
+	 * @return the graph of movieID's
+	 */
+	public static Graph<Integer> buildCoViewing(RatingsStore store, boolean sameRating) {
+		return buildCoViewing(store, sameRating, BITMAP_RATERS);
+	}
+
+	/**
+	 * Builds the graph from the inverted ratings.
+	 * @param sameRating true if shared users must also have given the same rating
+	 * @return the graph of movieID's
+	 */
+	public Graph<Integer> build(boolean sameRating) {
+		Instrumentation.Phase phase = Instrumentation.start(PhaseName.BUILD_GRAPH);
+		int m = movieIds.length;
+		int[][] later = new int[m][];
+		int[] counts = new int[m];
+		int[] touched = new int[m];
+		for(int i=0; i<m; i++) {
+			later[i] = laterNeighbors(i, sameRating, counts, touched);
+		}
+		Graph<Integer> graph = toGraph(later);
+		phase.items(m);
+		phase.close();
+		return graph;
+	}
+
+	/**
+	 * Builds the graph from the inverted ratings on a ForkJoinPool. Workers split the
+	 * movies into ranges and each movie's later neighbors go into its own slot, so the
+	 * merge in toGraph sees the same lists as the serial build.
+	 * @param sameRating true if shared users must also have given the same rating
+	 * @param parallelism number of worker threads
+	 * @return the graph of movieID's
+	 * @throws IllegalArgumentException if parallelism is less than 1
+	 */
+	public Graph<Integer> build(boolean sameRating, int parallelism) {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException();
+		}
+		if(parallelism == 1) {
+			return build(sameRating);
+		}
+		int m = movieIds.length;
+		int[][] later = new int[m][];
+		//small ranges so that workers can steal the expensive early movies
+		int leafSize = Math.max(1, m / (parallelism*16));
+		ThreadLocal<int[][]> scratch = ThreadLocal.withInitial(() -> new int[][] {new int[m], new int[m]});
+		Instrumentation.Phase phase = Instrumentation.start(PhaseName.BUILD_GRAPH);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new NeighborTask(0, m, leafSize, sameRating, later, scratch));
+		}finally {
+			pool.shutdown();
+		}
+		Graph<Integer> graph = toGraph(later);
+		phase.items(m);
+		phase.close();
+		return graph;
+	}
+
+	/**
+	 * Gives every edge a length from the number of users the two movies share:
+	 * maxWeight at SHARED_USERS shared users, falling toward 1 as more users are
+	 * shared, so that strongly linked movies are close together.
+	 * @param sameRating true if shared users must also have given the same rating
+	 * @param maxWeight length of an edge between movies with SHARED_USERS shared users
+	 * @return edge lengths between 1 and maxWeight, for CSRGraph.freeze
+	 * @throws IllegalArgumentException if maxWeight is less than 1
+	 */
+	public EdgeWeight sharedRaterWeight(final boolean sameRating, final int maxWeight) {
+		if(maxWeight < 1) {
+			throw new IllegalArgumentException();
+		}
+		final Map<Integer, Integer> position = new HashMap<Integer, Integer>();
+		final long[][] keys = new long[movieIds.length][];
+		for(int i=0; i<movieIds.length; i++) {
+			position.put(movieIds[i], i);
+			//user in the high half and rating code in the low half, sorted by user
+			keys[i] = new long[raterStart[i+1] - raterStart[i]];
+			for(int k=raterStart[i]; k<raterStart[i+1]; k++) {
+				keys[i][k-raterStart[i]] = ((long)raterUsers[k] << 32) | postingRatings[raterSlot[k]];
+			}
+			Arrays.sort(keys[i]);
+		}
+		return new EdgeWeight() {
+			@Override
+			public int weight(int u, int v) {
+				long[] a = keys[position.get(u)];
+				long[] b = keys[position.get(v)];
+				int shared = 0;
+				int i = 0;
+				int j = 0;
+				while(i < a.length && j < b.length) {
+					long userA = a[i] >>> 32;
+					long userB = b[j] >>> 32;
+					if(userA < userB) {
+						i++;
+					}else if(userA > userB) {
+						j++;
+					}else {
+						if(!sameRating || a[i] == b[j]) {
+							shared++;
+						}
+						i++;
+						j++;
+					}
+				}
+				if(shared <= SHARED_USERS) {
+					return maxWeight;
+				}
+				return Math.max(1, (maxWeight*SHARED_USERS + shared - 1) / shared);
+			}
+		};
+	}
+
+	/**
+	 * Finds the movies after position i that share enough users with it. Each user
+	 * who rated i adds one to every movie later in their postings.
+	 * @param i position of the movie
+	 * @param sameRating true if shared users must also have given the same rating
+	 * @param counts scratch counters, all zero on entry and on return
+	 * @param touched scratch list of the counters in use
+	 * @return positions of the adjacent later movies, ascending
+	 */
+	protected int[] laterNeighbors(int i, boolean sameRating, int[] counts, int[] touched) {
+		int numTouched = 0;
+		for(int k=raterStart[i]; k<raterStart[i+1]; k++) {
+			int slot = raterSlot[k];
+			int rating = postingRatings[slot];
+			int end = postingStart[raterUsers[k]+1];
+			for(int p=slot+1; p<end; p++) {
+				if(sameRating && postingRatings[p] != rating) {
+					continue;
+				}
+				int j = postingMovies[p];
+				if(counts[j]++ == 0) {
+					touched[numTouched++] = j;
+				}
+			}
+		}
+		//every movie that shares a user with i is one candidate pair
+		Counter.PAIRS_COMPARED.add(numTouched);
+		int found = 0;
+		for(int t=0; t<numTouched; t++) {
+			int j = touched[t];
+			if(counts[j] >= SHARED_USERS) {
+				touched[found++] = j;
+			}
+			counts[j] = 0;
+		}
+		int[] result = Arrays.copyOf(touched, found);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Turns the adjacent later movies of every position into a graph. Every vertex
+	 * gets its earlier neighbors and then its later ones, both in loader order, which
+	 * is the order the all-pairs builders add them in.
+	 * @param later positions of the adjacent later movies of each position, ascending
+	 * @return the graph of movieID's
+	 */
+	protected Graph<Integer> toGraph(int[][] later) {
+		return toGraph(movieIds, later);
+	}
+
+	/**
+	 * Turns the adjacent later movies of every position into a graph, as toGraph(later)
+	 * does for the given movie order.
+	 * @param movieIds position to movie ID
+	 * @param later positions of the adjacent later movies of each position, ascending
+	 * @return the graph of movieID's
+	 */
+	protected static Graph<Integer> toGraph(int[] movieIds, int[][] later) {
+		int m = movieIds.length;
+		int[] earlierStart = new int[m+1];
+		for(int i=0; i<m; i++) {
+			for(int j : later[i]) {
+				earlierStart[j+1]++;
+			}
+		}
+		for(int i=0; i<m; i++) {
+			earlierStart[i+1] += earlierStart[i];
+		}
+		int[] earlier = new int[earlierStart[m]];
+		int[] fill = Arrays.copyOf(earlierStart, m);
+		for(int i=0; i<m; i++) {
+			for(int j : later[i]) {
+				earlier[fill[j]++] = i;
+			}
+		}
+
+		Graph<Integer> graph = new Graph<Integer>();
+		for(int i=0; i<m; i++) {
+			graph.addVertex(movieIds[i]);
+		}
+		for(int i=0; i<m; i++) {
+			for(int e=earlierStart[i]; e<earlierStart[i+1]; e++) {
+				graph.addEdge(movieIds[i], movieIds[earlier[e]]);
+			}
+			for(int j : later[i]) {
+				graph.addEdge(movieIds[i], movieIds[j]);
+			}
+		}
+		Counter.EDGES_ADDED.add(graph.numEdges());
+		return graph;
+	}
+
+	/**
+	 * Counts the users two movies share, up to SHARED_USERS, with whichever kernel fits
+	 * how each movie is stored.
+	 * @param users sorted raters of each movie
+	 * @param bitmaps bitmap of each movie, null where the movie is kept as an array
+	 * @param i index of a movie
+	 * @param j index of a movie
+	 * @return number of shared users, at most SHARED_USERS
+	 */
+	private static int sharedUsers(int[][] users, RaterBitmap[] bitmaps, int i, int j) {
+		if(bitmaps[i] != null && bitmaps[j] != null) {
+			return bitmaps[i].andCardinality(bitmaps[j], SHARED_USERS);
+		}
+		if(bitmaps[i] != null) {
+			return bitmaps[i].andCardinality(users[j], SHARED_USERS);
+		}
+		if(bitmaps[j] != null) {
+			return bitmaps[j].andCardinality(users[i], SHARED_USERS);
+		}
+		return SortedIntersection.count(users[i], users[j], SHARED_USERS);
+	}
+
+	/**
+	 * Fork-join task that finds the later neighbors of a range of movie positions.
+	 */
+	private class NeighborTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;//never serialized, declared to keep the build warning-free
+		private final int from;
+		private final int to;
+		private final int leafSize;
+		private final boolean sameRating;
+		private final int[][] later;
+		private final ThreadLocal<int[][]> scratch;
+
+		/**
+		 * Constructor for a task over positions from up to, but excluding, to.
+		 * @param from first position
+		 * @param to end of the range
+		 * @param leafSize largest range that is not split
+		 * @param sameRating true if shared users must also have given the same rating
+		 * @param later where the neighbors of each position are stored
+		 * @param scratch counters and touched list of each worker
+		 */
+		NeighborTask(int from, int to, int leafSize, boolean sameRating, int[][] later,
+				ThreadLocal<int[][]> scratch) {
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+			this.sameRating = sameRating;
+			this.later = later;
+			this.scratch = scratch;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= leafSize) {
+				int[][] buffers = scratch.get();
+				for(int i=from; i<to; i++) {
+					later[i] = laterNeighbors(i, sameRating, buffers[0], buffers[1]);
+				}
+			}else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new NeighborTask(from, mid, leafSize, sameRating, later, scratch),
+						new NeighborTask(mid, to, leafSize, sameRating, later, scratch));
+			}
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package graph;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A directed graph that many threads can read and write at once. Every vertex keeps
+ * its neighbors as an immutable snapshot that readers get without taking a lock, and
+ * a concurrent set of the same neighbors for edgeExists. Writers lock only the vertex
+ * the edge starts at. A new edge is appended to the neighbor array past the end of the
+ * current snapshot and then published as a new snapshot, so existing snapshots never
+ * change and the array is only copied when it is full.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class ConcurrentGraph<V> implements GraphIfc<V> {
+	protected final ConcurrentHashMap<V, Adjacency<V>> vertices;
+	protected final AtomicInteger numEdges;
+
+	/**
+	 * Constructor for an empty graph.
+	 */
+	public ConcurrentGraph() {
+		vertices = new ConcurrentHashMap<V, Adjacency<V>>();
+		numEdges = new AtomicInteger();
+	}
+
+	/**
+	 * Constructor that copies the vertices and edges of another graph, keeping the
+	 * order of the neighbors. The other graph must not change during the copy.
+	 * @param g the graph to copy
+	 */
+	public ConcurrentGraph(GraphIfc<V> g) {
+		this();
+		for(V v : g.getVertices()) {
+			addVertex(v);
+		}
+		for(V v : g.getVertices()) {
+			for(V u : g.getNeighbors(v)) {
+				addEdge(v, u);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of vertices in the graph
+	 * @return The number of vertices in the graph
+	 */
+	@Override
+	public int numVertices() {
+		return vertices.size();
+	}
+
+	/**
+	 * Returns the number of edges in the graph
+	 * @return The number of edges in the graph
+	 */
+	@Override
+	public int numEdges() {
+		return numEdges.get();
+	}
+
+	/**
+	 * Removes all vertices from the graph. Each vertex is removed under its lock and
+	 * its edges are taken off the count, so the count stays equal to the edges still
+	 * stored. Edges added while the graph is being cleared may or may not survive.
+	 */
+	@Override
+	public void clear() {
+		for(V v : vertices.keySet()) {
+			Adjacency<V> adjacency = vertices.remove(v);
+			if(adjacency == null) {
+				continue;
+			}
+			synchronized(adjacency) {
+				adjacency.removed = true;
+				numEdges.addAndGet(-adjacency.snapshot.size());
+			}
+		}
+	}
+
+	/**
+	 * Adds a vertex to the graph. This method has no effect if the vertex already exists in the graph.
+	 * @param v The vertex to be added
+	 */
+	@Override
+	public void addVertex(V v) {
+		vertices.putIfAbsent(v, new Adjacency<V>());
+	}
+
+	/**
+	 * Adds an edge between vertices u and v in the graph. Only writers adding edges
+	 * that start at u wait for each other.
+	 * @param u A vertex in the graph
+	 * @param v A vertex in the graph
+	 * @throws IllegalArgumentException if either vertex does not occur in the graph.
+	 */
+	@Override
+	public void addEdge(V u, V v) {
+		Adjacency<V> adjacency = checkedGet(u);
+		if(!vertices.containsKey(v)) {
+			throw new IllegalArgumentException();
+		}
+		if(adjacency.members.contains(v)) {
+			return;
+		}
+		synchronized(adjacency) {
+			//u was cleared after it was looked up, the edge goes with it
+			if(adjacency.removed || adjacency.members.contains(v)) {
+				return;
+			}
+			adjacency.append(v);
+			//added to the set after the snapshot, so edgeExists never runs ahead of getNeighbors
+			adjacency.members.add(v);
+			numEdges.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the set of all vertices in the graph. It is a read-only view that sees
+	 * vertices added later.
+	 * @return A set containing all vertices in the graph
+	 */
+	@Override
+	public Set<V> getVertices() {
+		return Collections.unmodifiableSet(vertices.keySet());
+	}
+
+	/**
+	 * Returns the neighbors of v in the graph, as an immutable snapshot that does not
+	 * see edges added later.
+	 * @param v An existing node in the graph
+	 * @return All neighbors of v in the graph.
+	 * @throws IllegalArgumentException if the vertex does not occur in the graph
+	 */
+	@Override
+	public List<V> getNeighbors(V v) {
+		return checkedGet(v).snapshot;
+	}
+
+	/**
+	 * Determines whether the given vertex is contained in the graph.
+	 * @param v The vertex to be tested.
+	 * @return True if v exists in the graph, false otherwise.
+	 */
+	@Override
+	public boolean containsVertex(V v) {
+		return vertices.containsKey(v);
+	}
+
+	/**
+	 * Determines whether an edge starts at v and ends at u, without locking.
+	 * @param v A node in the graph
+	 * @param u A node in the graph
+	 * @return True if an edge exists between the two vertices
+	 * @throws IllegalArgumentException if either vertex does not occur in the graph
+	 */
+	@Override
+	public boolean edgeExists(V v, V u) {
+		Adjacency<V> adjacency = checkedGet(v);
+		if(!vertices.containsKey(u)) {
+			throw new IllegalArgumentException();
+		}
+		return adjacency.members.contains(u);
+	}
+
+	/**
+	 * Returns the outdegree of the vertex.
+	 * @param v A vertex in the graph
+	 * @return The degree of the vertex
+	 * @throws IllegalArgumentException if the vertex does not occur in the graph
+	 */
+	@Override
+	public int degree(V v) {
+		return checkedGet(v).snapshot.size();
+	}
+
+	/**
+	 * Returns a string representation of the graph in the same format as Graph.
+	 * @return A string representation of the graph
+	 */
+	@Override
+	public String toString() {
+		StringWriter out = new StringWriter();
+		try {
+			GraphExport.writeAdjacencyList(this, out);
+		}catch(IOException e) {
+			//a StringWriter never throws
+			throw new AssertionError(e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Finds the adjacency of a vertex that must be in the graph.
+	 * @param v A vertex
+	 * @return its adjacency
+	 * @throws IllegalArgumentException if the vertex does not occur in the graph
+	 */
+	private Adjacency<V> checkedGet(V v) {
+		Adjacency<V> adjacency = v == null ? null : vertices.get(v);
+		if(adjacency == null) {
+			throw new IllegalArgumentException();
+		}
+		return adjacency;
+	}
+
+	/**
+	 * The neighbors of one vertex. The snapshot is replaced, never changed, and the
+	 * set always holds the neighbors of the latest snapshot.
+	 */
+	protected static class Adjacency<V> {
+		protected volatile Snapshot<V> snapshot = new Snapshot<V>(new Object[4], 0);
+		protected final Set<V> members = ConcurrentHashMap.newKeySet();
+		protected boolean removed;//set by clear with the lock held, no edge is added after
+
+		/**
+		 * Publishes a snapshot with one more neighbor. Called with the lock held.
+		 * @param v the new neighbor
+		 */
+		protected void append(V v) {
+			Object[] array = snapshot.array;
+			int size = snapshot.size;
+			if(size == array.length) {
+				array = Arrays.copyOf(array, 2*size);
+			}
+			//past the end of every published snapshot, so no reader can see this write
+			array[size] = v;
+			snapshot = new Snapshot<V>(array, size+1);
+		}
+	}
+
+	/**
+	 * An immutable list of the first size entries of an array.
+	 */
+	protected static class Snapshot<V> extends AbstractList<V> implements RandomAccess {
+		private final Object[] array;
+		private final int size;
+
+		/**
+		 * Constructor for a snapshot of an array prefix.
+		 * @param array neighbors, only the first size are part of the snapshot
+		 * @param size number of neighbors
+		 */
+		protected Snapshot(Object[] array, int size) {
+			this.array = array;
+			this.size = size;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V get(int i) {
+			if(i<0 || i>=size) {
+				throw new IndexOutOfBoundsException();
+			}
+			return (V) array[i];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
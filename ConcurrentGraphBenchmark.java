@@ -0,0 +1,77 @@
+package bench;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import graph.*;
+
+/**
+ * Benchmark of mixed reads and writes on one shared graph. Three reader threads
+ * call getNeighbors and edgeExists on random vertices while one writer thread adds
+ * random edges. The concurrent group runs against a ConcurrentGraph, the locked group
+ * against a Graph behind a single lock, which is the only safe way to share a Graph.
+ * The graph is a random graph with the vertex count and average degree of the movie
+ * graph, rebuilt before every iteration so that the writers do not make it denser
+ * from one iteration to the next.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class ConcurrentGraphBenchmark {
+	private static final int VERTICES = 10000;
+	private static final int DEGREE = 50;
+
+	private ConcurrentGraph<Integer> concurrent;
+	private Graph<Integer> locked;
+
+	/**
+	 * Runs both groups, three reader threads and one writer thread each.
+	 * @param args names of the groups to run, none for both
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		ConcurrentGraphBenchmark b = new ConcurrentGraphBenchmark();
+		BenchmarkRunner.groupThroughput(args, "ConcurrentGraph.concurrent", b::setUp, 3, b::concurrentRead, 1,
+				() -> { b.concurrentWrite(); return null; });
+		BenchmarkRunner.groupThroughput(args, "ConcurrentGraph.locked", b::setUp, 3, b::lockedRead, 1,
+				() -> { b.lockedWrite(); return null; });
+	}
+
+	public void setUp() {
+		Random random = new Random(42);
+		locked = new Graph<Integer>();
+		for(int v=0; v<VERTICES; v++) {
+			locked.addVertex(v);
+		}
+		for(int e=0; e<VERTICES*DEGREE; e++) {
+			locked.addEdge(random.nextInt(VERTICES), random.nextInt(VERTICES));
+		}
+		concurrent = new ConcurrentGraph<Integer>(locked);
+	}
+
+	public boolean concurrentRead() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Integer v = random.nextInt(VERTICES);
+		int size = concurrent.getNeighbors(v).size();
+		return concurrent.edgeExists(v, random.nextInt(VERTICES)) || size == 0;
+	}
+
+	public void concurrentWrite() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		concurrent.addEdge(random.nextInt(VERTICES), random.nextInt(VERTICES));
+	}
+
+	public boolean lockedRead() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Integer v = random.nextInt(VERTICES);
+		synchronized(locked) {
+			int size = locked.getNeighbors(v).size();
+			return locked.edgeExists(v, random.nextInt(VERTICES)) || size == 0;
+		}
+	}
+
+	public void lockedWrite() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		synchronized(locked) {
+			locked.addEdge(random.nextInt(VERTICES), random.nextInt(VERTICES));
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package graph;
+
+/**
+ * Receives the shortest path distances from one source at a time, so that
+ * statistics over all pairs can be gathered without keeping an n x n matrix.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public interface DistanceRowConsumer {
+	/**
+	 * Takes the distances from one source. The array is reused for the next source,
+	 * so it must not be kept.
+	 * @param source dense index of the source vertex
+	 * @param dist distance from the source to each dense index, Integer.MAX_VALUE if unreachable
+	 */
+	void accept(int source, int[] dist);
+}
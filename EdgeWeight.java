@@ -0,0 +1,17 @@
+package graph;
+
+/**
+ * Gives the length of an edge when a graph is frozen with weights.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public interface EdgeWeight {
+	/**
+	 * Returns the length of the edge from u to v.
+	 * @param u movie ID the edge starts at
+	 * @param v movie ID the edge ends at
+	 * @return a non-negative length
+	 */
+	int weight(int u, int v);
+}
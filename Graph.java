@@ -1,5 +1,9 @@
 package graph;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Set;
@@ -13,15 +17,32 @@ import java.util.Map;
  *
  */
 public class Graph<V> extends GraphAlgorithms implements GraphIfc<V> {
+	/**
+	 * Degree above which a vertex also keeps its neighbors in a hash set, so that
+	 * edgeExists no longer scans the list.
+	 */
+	protected static final int INDEX_THRESHOLD = 16;
 	protected Map<V, List<V>> directedGraph;
+	protected Map<V, Set<V>> neighborIndex;//only holds vertices with degree above INDEX_THRESHOLD
 	protected int numEdges;
+	protected int[] degreeCount;//number of vertices with each degree
+	protected int maxDegree;
+	protected V maxVertex;//first vertex to reach maxDegree
+	protected int modCount;//number of changes, so that caches can tell the graph changed
+	protected CSRGraph frozen;//CSR copy kept by CSRGraph.frozen, null until asked for
+	protected int frozenModCount;//modCount when frozen was made
 	
 	/**
 	 * Constructor for directed graph.
 	 */
 	public Graph(){
 		directedGraph = new HashMap<V, List<V>>();
+		neighborIndex = new HashMap<V, Set<V>>();
 		numEdges = 0;
+		degreeCount = new int[16];
+		maxDegree = 0;
+		maxVertex = null;
+		modCount = 0;
 	}
 	
 	/**
@@ -48,7 +69,12 @@ public class Graph<V> extends GraphAlgorithms implements GraphIfc<V> {
 	@Override
 	public void clear() {
 		directedGraph.clear();
+		neighborIndex.clear();
 		numEdges = 0;
+		degreeCount = new int[16];
+		maxDegree = 0;
+		maxVertex = null;
+		modCount++;
 		
 	}
 
@@ -62,6 +88,8 @@ public class Graph<V> extends GraphAlgorithms implements GraphIfc<V> {
 		if(containsVertex(v) == false ) {
 			List<V> list = new ArrayList<V>();
 			directedGraph.put(v, list);
+			degreeCount[0]++;
+			modCount++;
 		}
 		
 	}
@@ -85,6 +113,14 @@ public class Graph<V> extends GraphAlgorithms implements GraphIfc<V> {
 			List<V> listU = directedGraph.get(u);
 			listU.add(v);
 			numEdges++;
+			modCount++;
+			updateDegree(u, listU.size());
+			//dense vertices get a hash set so edgeExists stays O(1)
+			if(listU.size() == INDEX_THRESHOLD+1) {
+				neighborIndex.put(u, new HashSet<V>(listU));
+			}else if(listU.size() > INDEX_THRESHOLD) {
+				neighborIndex.get(u).add(v);
+			}
 		}
 		
 	}
@@ -133,7 +169,9 @@ public class Graph<V> extends GraphAlgorithms implements GraphIfc<V> {
 	
 	/**
 	 * Determines whether an edge exists between two vertices. In a directed graph,
-	 * this returns true only if the edge starts at v and ends at u. 
+	 * this returns true only if the edge starts at v and ends at u. Vertices with
+	 * more than INDEX_THRESHOLD neighbors are looked up in a hash set, the rest are
+	 * scanned since a short list is faster to walk than to hash.
 	 * @param v A node in the graph
 	 * @param u A node in the graph
 	 * @return True if an edge exists between the two vertices
@@ -145,6 +183,9 @@ public class Graph<V> extends GraphAlgorithms implements GraphIfc<V> {
 			throw new IllegalArgumentException();
 		}
 		List<V> listV = directedGraph.get(v);
+		if(listV.size() > INDEX_THRESHOLD) {
+			return neighborIndex.get(v).contains(u);
+		}
 		for(int i=0; i<listV.size(); i++) {
 			if(listV.get(i).equals(u)) {
 				return true; 
@@ -162,68 +203,89 @@ public class Graph<V> extends GraphAlgorithms implements GraphIfc<V> {
 	 */
 	@Override
 	public int degree(V v) {
-		if(containsVertex(v) == true) {
-			int listSize = directedGraph.get(v).size();
-			return listSize;
-		}else {
+		List<V> list = directedGraph.get(v);
+		if(list == null) {
 			throw new IllegalArgumentException();
 		}
+		return list.size();
 	}
 	
 	/**
-	 * Returns the Maximum number of outgoing edges of any node. 
+	 * Returns the Maximum number of outgoing edges of any node. The maximum is kept
+	 * up to date as edges are added, so this does not look at the vertices.
 	 * 
 	 * @return int maximum degree
 	 */
 	public int maxDegree() {
-		int degree = 0;
-		for(V v: directedGraph.keySet()) {
-			int currDegree = degree(v);
-			if(currDegree>degree) {
-				degree = currDegree;
-			}
-		}
-		return degree;
+		return maxDegree;
 	}
 	
 	/**
-	 * Return the vertex with the Maximum degrees. 
+	 * Return the vertex with the Maximum degrees. When several vertices share the
+	 * maximum degree, this is the first one that reached it.
 	 * 
-	 * @return Vertex the vertex with the maximum degree
+	 * @return Vertex the vertex with the maximum degree, null if there are no edges
 	 */
 	public V maxVertex() {
-		int degree = 0;
-		V maxV = null;
-		for(V v: directedGraph.keySet()) {
-			int currDegree = degree(v);
-			if(currDegree>degree) {
-				maxV = v;
-				degree = currDegree;
-			}
+		return maxVertex;
+	}
+	
+	/**
+	 * Returns a number that changes whenever a vertex or edge is added or the graph
+	 * is cleared. Anything computed from the graph is still valid while this stays
+	 * the same.
+	 * 
+	 * @return the modification count
+	 */
+	public int modCount() {
+		return modCount;
+	}
+	
+	/**
+	 * Returns the number of vertices of each degree, from 0 up to maxDegree().
+	 * 
+	 * @return array whose entry d is the number of vertices with degree d
+	 */
+	public int[] degreeDistribution() {
+		return Arrays.copyOf(degreeCount, maxDegree+1);
+	}
+	
+	/**
+	 * Moves a vertex whose degree just grew by one to its new place in the degree
+	 * counts, and updates the maximum.
+	 * @param u the vertex
+	 * @param degree its new degree
+	 */
+	private void updateDegree(V u, int degree) {
+		if(degree == degreeCount.length) {
+			degreeCount = Arrays.copyOf(degreeCount, 2*degree);
+		}
+		degreeCount[degree-1]--;
+		degreeCount[degree]++;
+		if(degree > maxDegree) {
+			maxDegree = degree;
+			maxVertex = u;
 		}
-		return maxV;
 	}
 	
 	
 	
 	/**
 	 * Returns a string representation of the graph. The string representation shows all
-	 * vertices and edges in the graph. 
+	 * vertices and edges in the graph. Use GraphExport to write a large graph straight
+	 * to a file instead.
 	 * @return A string representation of the graph
 	 */
 	@Override 
 	public String toString() {
-		String toString = "";
-		for(V v : directedGraph.keySet()){
-			List<V> list = directedGraph.get(v);
-			toString += "\n" + v + ": ";
-			for(int i=0; i<degree(v); i++) {
-				toString += list.get(i) + ", ";
-				
-			}
-			
+		StringWriter out = new StringWriter();
+		try {
+			GraphExport.writeAdjacencyList(this, out);
+		}catch(IOException e) {
+			//a StringWriter never throws
+			throw new AssertionError(e);
 		}
-		return toString;
+		return out.toString();
 	}
 
 }
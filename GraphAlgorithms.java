@@ -1,11 +1,16 @@
 package graph;
 import graph.Graph;
 import util.*;
+import util.Instrumentation.Counter;
+import util.Instrumentation.PhaseName;
 import data.*;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * Class that implements Floyd-Warshall and Dijkstras Algorithms. 
@@ -14,81 +19,549 @@ import java.util.Map;
  *
  */
 public class GraphAlgorithms {
+	/**
+	 * Side of the square tiles used by the blocked Floyd-Warshall. Three 64x64 int
+	 * tiles take 48KB, about what fits in the L1 and L2 caches of one core.
+	 */
+	public static final int FW_BLOCK = 64;
+	/**
+	 * Distance used for unreachable pairs inside the blocked Floyd-Warshall. Adding
+	 * two of them cannot overflow, so the inner loop needs no reachability check.
+	 */
+	private static final int FW_INFINITY = Integer.MAX_VALUE / 2;
+	/**
+	 * Largest matrix the blocked Floyd-Warshall can hold in one array, a little
+	 * under Integer.MAX_VALUE because some JVMs reserve header words in arrays.
+	 */
+	private static final long FW_MAX_ENTRIES = Integer.MAX_VALUE - 8;
+
 	/**
 	 * Algorithm for Floyd-Warshall. Computes the shortest path between all pairs of 
-	 * nodes in the graph.
-	 * @param g graph of movieID's
+	 * nodes in the graph. Row and column i of the result belong to movie ID i, so the
+	 * movie ID's must run from 1 to n. For any other ID's, such as the sparse ID's of
+	 * the full MovieLens data, a matrix indexed by ID would need rows up to the
+	 * largest ID; use floydWarshall(CSRGraph.frozen(g)), whose rows are the dense
+	 * indices of g.getIndex(), instead.
+	 * @param g graph of movieID's 1 to n
 	 * @return 2D array that holds the shortest path
+	 * @throws IllegalArgumentException if the movie ID's are not 1 to n
 	 */
 	public static int[][] floydWarshall(Graph<Integer> g) {
-		int n = g.numVertices();
-		int results[][] = new int[n+1][n+1];  
-        
-        for (int i = 1; i<=n; i++) 
-            for (int j = 1; j<=n; j++) 
-            	if(g.edgeExists(i, j)) {
-					results[i][j] = 1;
-				}else if(i==j) {
-					results[i][j] = 0;
-				}
-				else {
-					results[i][j] = Integer.MAX_VALUE;
-				}
-        
-		//finish filling out the array 
-		for(int k=1; k<=n; k++) {
-			for(int i=1; i<=n; i++) {
-				for(int j=1; j<=n; j++) {
-					if(results[i][k] + results[k][j] < results[i][j] & results[i][k] + results[k][j]>0) {
-							results[i][j] = results[i][k] + results[k][j];
-					}
-				}
-			}
+		CSRGraph csr = CSRGraph.frozen(g);
+		int n = csr.numVertices();
+		if(n > 0 && (csr.ids[0] != 1 || csr.ids[n-1] != n)) {
+			throw new IllegalArgumentException("Movie ID's run from " + csr.ids[0] + " to " + csr.ids[n-1]
+					+ ", not 1 to " + n + "; use floydWarshall(CSRGraph) for dense rows");
 		}
-		return results;//the 2D Array that holds the shortest path;	
+		return floydWarshall(csr);//dense index i is movie ID i+1
 	}
 	
 	/**
 	 * Algorithm for Dijkstras. Finds the shortest path between the two nodes
-	 * entered by the user.
+	 * entered by the user. The distances, the queue and the visiting order work on
+	 * the dense indices of a CSR copy of the graph, and only the returned map uses
+	 * movie IDs, so any IDs work and the arrays hold exactly one entry per vertex.
+	 * The copy is made once and reused until the graph changes.
+	 * <p>
+	 * The map differs from the one the list-based queue used to give in two ways.
+	 * Only vertices reachable from the source, other than the source, have an entry;
+	 * unreachable vertices used to get entries pointing at other unreachable vertices.
+	 * And where a vertex has several predecessors on shortest paths, the one recorded
+	 * can differ, because the 4-ary heap pops vertices of equal distance in another
+	 * order. Every recorded predecessor is still on a shortest path.
 	 * @param g graph
 	 * @param source node to start the algorithm within graph
-	 * @return map that reconstructs the shortest path between nodes
+	 * @return map from each vertex reachable from source to its predecessor on a shortest path
 	 */
 	public static Map<Integer, Integer> dijkstrasAlgorithm(Graph<Integer> g, int source) {
-		PriorityQueue Q = new PriorityQueue();//priority queue that holds the movies
+		try(Instrumentation.Phase phase = Instrumentation.start(PhaseName.DIJKSTRA)) {
+			phase.items(g.numVertices());
+			return computeDijkstrasAlgorithm(g, source);
+		}
+	}
+
+	/**
+	 * Body of dijkstrasAlgorithm(Graph, int), run inside its phase.
+	 */
+	private static Map<Integer, Integer> computeDijkstrasAlgorithm(Graph<Integer> g, int source) {
+		CSRGraph csr = CSRGraph.frozen(g);
+		int n = csr.numVertices();
+		int s = csr.indexOf(source);
+		IntPriorityQueue Q = new IntPriorityQueue(4, n);//priority queue that holds the movies
 		Map<Integer, Integer> prev = new HashMap<Integer, Integer>();//where the shortest path is stored
 		
-		int[] dist = new int[g.numVertices()+1];//arrayList that overwrites itself for shortest distance
-		for(int i =1; i< g.numVertices()+1; i++) {
-			if(i == source) {
-				dist[source] = 0;
-			}else {
-				dist[i] = Integer.MAX_VALUE;
-			}
+		int[] dist = new int[n];//array that overwrites itself for shortest distance
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		if(s >= 0) {
+			dist[s] = 0;
 		}
 
+		int[] vertices = new int[n];
+		int[] priorities = new int[n];
+		int count = 0;
 		for(Integer vertex : g.getVertices()) {
-			Q.push(dist[vertex], vertex);
+			int v = csr.indexOf(vertex);
+			vertices[count] = v;
+			priorities[count++] = dist[v];
 		}
+		Q.pushAll(priorities, vertices);//O(n) heap build instead of n pushes
+		long settled = 0;//counted locally and added to the counters once
+		long pops = 0;
+		long relaxations = 0;
+		long decreaseKeys = 0;
 	
 		while(!Q.isEmpty()) {
 			int u = Q.topElement();
 			Q.pop();
-			int alt = 0;
-			for(int v : g.getNeighbors(u)) {
-					if(dist[u]== Integer.MAX_VALUE) {
-						alt = Integer.MAX_VALUE;
+			pops++;
+			if(dist[u] == Integer.MAX_VALUE) {
+				break;//everything left is unreachable and gets no predecessor
+			}
+			settled++;
+			relaxations += csr.offsets[u+1] - csr.offsets[u];
+			int alt = dist[u] + 1;
+			for(int e=csr.offsets[u]; e<csr.offsets[u+1]; e++) {
+				int v = csr.targets[e];
+				//a vertex already popped is at most dist[u] away, so the test skips it
+				if(alt <= dist[v]) {
+					dist[v] = alt;
+					prev.put(csr.ids[v], csr.ids[u]);
+					Q.changePriority(alt, v);
+					decreaseKeys++;
+				}
+			}
+		}
+		Counter.HEAP_PUSHES.add(n);
+		Counter.HEAP_POPS.add(pops);
+		Counter.RELAXATIONS.add(relaxations);
+		Counter.HEAP_DECREASE_KEYS.add(decreaseKeys);
+		Counter.VERTICES_SETTLED.add(settled);
+		return prev;
+	}
+
+	/**
+	 * Floyd-Warshall over a CSR graph. Row and column i+1 of the result belong to
+	 * the vertex at dense index i, which is the movie ID when IDs run from 1 to n.
+	 * @param g CSR graph of movieID's
+	 * @return 2D array that holds the shortest path
+	 */
+	public static int[][] floydWarshall(CSRGraph g) {
+		try(Instrumentation.Phase phase = Instrumentation.start(PhaseName.FLOYD_WARSHALL)) {
+			phase.items(g.numVertices());
+			return computeFloydWarshall(g);
+		}
+	}
+
+	/**
+	 * Body of floydWarshall(CSRGraph), run inside its phase.
+	 */
+	private static int[][] computeFloydWarshall(CSRGraph g) {
+		int n = g.numVertices();
+		int results[][] = new int[n+1][n+1];
+
+		for(int i=1; i<=n; i++) {
+			Arrays.fill(results[i], 1, n+1, Integer.MAX_VALUE);
+			results[i][i] = 0;
+			for(int e=g.offsets[i-1]; e<g.offsets[i]; e++) {
+				results[i][g.targets[e]+1] = 1;
+			}
+		}
+
+		for(int k=1; k<=n; k++) {
+			int[] rowK = results[k];
+			for(int i=1; i<=n; i++) {
+				int[] rowI = results[i];
+				int ik = rowI[k];
+				for(int j=1; j<=n; j++) {
+					if(ik + rowK[j] < rowI[j] & ik + rowK[j]>0) {
+						rowI[j] = ik + rowK[j];
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Dijkstras over a CSR graph. Works on dense indices, use g.indexOf and
+	 * g.vertexId to convert to and from movie ID's.
+	 * @param g CSR graph
+	 * @param source movie ID to start the algorithm from
+	 * @return dense index of each vertex's predecessor on its shortest path, -1 if it has none
+	 * @throws IllegalArgumentException if the source does not occur in the graph
+	 */
+	public static int[] dijkstrasAlgorithm(CSRGraph g, int source) {
+		try(Instrumentation.Phase phase = Instrumentation.start(PhaseName.DIJKSTRA)) {
+			phase.items(g.numVertices());
+			return computeDijkstrasAlgorithm(g, source);
+		}
+	}
+
+	/**
+	 * Body of dijkstrasAlgorithm(CSRGraph, int), run inside its phase.
+	 */
+	private static int[] computeDijkstrasAlgorithm(CSRGraph g, int source) {
+		int s = g.indexOf(source);
+		if(s < 0) {
+			throw new IllegalArgumentException();
+		}
+		int n = g.numVertices();
+		IntPriorityQueue Q = new IntPriorityQueue(4, n);
+		int[] prev = new int[n];
+		int[] dist = new int[n];
+		Arrays.fill(prev, -1);
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		dist[s] = 0;
+		int[] vertices = new int[n];
+		for(int i=0; i<n; i++) {
+			vertices[i] = i;
+		}
+		Q.pushAll(dist, vertices);
+
+		long settled = 0;//counted locally and added to the counters once
+		long pops = 0;
+		long relaxations = 0;
+		long decreaseKeys = 0;
+		while(!Q.isEmpty()) {
+			int u = Q.topElement();
+			Q.pop();
+			pops++;
+			if(dist[u] == Integer.MAX_VALUE) {
+				break;//everything left is unreachable
+			}
+			settled++;
+			int alt = dist[u] + 1;
+			relaxations += g.offsets[u+1] - g.offsets[u];
+			for(int e=g.offsets[u]; e<g.offsets[u+1]; e++) {
+				int v = g.targets[e];
+				if(alt < dist[v]) {
+					dist[v] = alt;
+					prev[v] = u;
+					Q.changePriority(alt, v);
+					decreaseKeys++;
+				}
+			}
+		}
+		Counter.HEAP_PUSHES.add(n);
+		Counter.HEAP_POPS.add(pops);
+		Counter.RELAXATIONS.add(relaxations);
+		Counter.HEAP_DECREASE_KEYS.add(decreaseKeys);
+		Counter.VERTICES_SETTLED.add(settled);
+		return prev;
+	}
+
+	/**
+	 * Blocked Floyd-Warshall over a flat matrix. The matrix is cut into FW_BLOCK x
+	 * FW_BLOCK tiles and every round of k goes through the usual three phases: the
+	 * tile on the diagonal, then the tiles in its row and column, then all the
+	 * others. The tiles of the last two phases do not depend on each other and run
+	 * in parallel on the common ForkJoinPool. The distances are the same as
+	 * floydWarshall(g) returns.
+	 * @param g CSR graph of movieID's
+	 * @return n*n matrix where entry i*n+j is the shortest path between the vertices
+	 * at dense indices i and j, Integer.MAX_VALUE if there is none
+	 * @throws IllegalArgumentException if n*n entries do not fit in one array, which
+	 * happens past 46340 vertices
+	 */
+	public static int[] floydWarshallBlocked(CSRGraph g) {
+		try(Instrumentation.Phase phase = Instrumentation.start(PhaseName.FLOYD_WARSHALL)) {
+			phase.items(g.numVertices());
+			return computeFloydWarshallBlocked(g);
+		}
+	}
+
+	/**
+	 * Body of floydWarshallBlocked(CSRGraph), run inside its phase.
+	 */
+	private static int[] computeFloydWarshallBlocked(CSRGraph g) {
+		final int n = g.numVertices();
+		long entries = (long) n * n;
+		if(entries > FW_MAX_ENTRIES) {
+			throw new IllegalArgumentException("Floyd-Warshall matrix of " + n + " vertices has " + entries
+					+ " entries, more than one array can hold; use allPairsBFS or pathStatistics instead");
+		}
+		final int[] dist = new int[(int) entries];
+		Arrays.fill(dist, FW_INFINITY);
+		for(int i=0; i<n; i++) {
+			dist[i*n+i] = 0;
+			for(int e=g.offsets[i]; e<g.offsets[i+1]; e++) {
+				dist[i*n+g.targets[e]] = 1;
+			}
+		}
+
+		final int blocks = (n + FW_BLOCK - 1) / FW_BLOCK;
+		for(int kb=0; kb<blocks; kb++) {
+			final int k = kb;
+			updateTile(dist, n, k, k, k);
+			IntStream.range(0, 2*blocks).parallel().forEach(t -> {
+				int other = t / 2;
+				if(other != k) {
+					if(t % 2 == 0) {
+						updateTile(dist, n, k, other, k);
 					}else {
-						alt = dist[u] + 1;
+						updateTile(dist, n, other, k, k);
 					}
-					if(alt <= dist[v]) {
+				}
+			});
+			IntStream.range(0, blocks*blocks).parallel().forEach(t -> {
+				int ib = t / blocks;
+				int jb = t % blocks;
+				if(ib != k && jb != k) {
+					updateTile(dist, n, ib, jb, k);
+				}
+			});
+		}
+
+		for(int i=0; i<dist.length; i++) {
+			if(dist[i] >= FW_INFINITY) {
+				dist[i] = Integer.MAX_VALUE;
+			}
+		}
+		return dist;
+	}
+
+	/**
+	 * Relaxes one tile of the blocked Floyd-Warshall through the vertices of block kb.
+	 * @param dist flat n*n distance matrix
+	 * @param n number of vertices
+	 * @param ib row block of the tile
+	 * @param jb column block of the tile
+	 * @param kb block of intermediate vertices
+	 */
+	private static void updateTile(int[] dist, int n, int ib, int jb, int kb) {
+		int iEnd = Math.min(n, (ib+1)*FW_BLOCK);
+		int jStart = jb*FW_BLOCK;
+		int jEnd = Math.min(n, jStart+FW_BLOCK);
+		int kEnd = Math.min(n, (kb+1)*FW_BLOCK);
+		for(int k=kb*FW_BLOCK; k<kEnd; k++) {
+			int rowK = k*n;
+			for(int i=ib*FW_BLOCK; i<iEnd; i++) {
+				int rowI = i*n;
+				int ik = dist[rowI+k];
+				if(ik == FW_INFINITY) {
+					continue;//nothing goes through k from i
+				}
+				for(int j=jStart; j<jEnd; j++) {
+					dist[rowI+j] = Math.min(dist[rowI+j], ik + dist[rowK+j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Breadth first search from one source. Every edge has length 1, so this gives the
+	 * same distances as Dijkstras in O(n+E).
+	 * @param g CSR graph
+	 * @param source dense index of the source
+	 * @param dist filled with the distance to each dense index, Integer.MAX_VALUE if unreachable
+	 * @param queue scratch array of length at least n
+	 * @return number of vertices reached, including the source
+	 */
+	public static int bfs(CSRGraph g, int source, int[] dist, int[] queue) {
+		Arrays.fill(dist, 0, g.numVertices(), Integer.MAX_VALUE);
+		dist[source] = 0;
+		queue[0] = source;
+		int head = 0;
+		int tail = 1;
+		while(head < tail) {
+			int u = queue[head++];
+			int next = dist[u] + 1;
+			for(int e=g.offsets[u]; e<g.offsets[u+1]; e++) {
+				int v = g.targets[e];
+				if(dist[v] == Integer.MAX_VALUE) {
+					dist[v] = next;
+					queue[tail++] = v;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Breadth first search that keeps the parent of every vertex it reaches, so that
+	 * paths from the source can be read back without searching again.
+	 * @param g CSR graph of movieID's
+	 * @param source movie ID to start from
+	 * @return the shortest paths from source
+	 * @throws IllegalArgumentException if the source does not occur in the graph
+	 */
+	public static ShortestPathTree bfsTree(CSRGraph g, int source) {
+		int s = g.indexOf(source);
+		if(s < 0) {
+			throw new IllegalArgumentException();
+		}
+		int n = g.numVertices();
+		int[] dist = new int[n];
+		int[] parent = new int[n];
+		int[] queue = new int[n];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		Arrays.fill(parent, -1);
+		dist[s] = 0;
+		queue[0] = s;
+		int head = 0;
+		int tail = 1;
+		while(head < tail) {
+			int u = queue[head++];
+			int next = dist[u] + 1;
+			for(int e=g.offsets[u]; e<g.offsets[u+1]; e++) {
+				int v = g.targets[e];
+				if(dist[v] == Integer.MAX_VALUE) {
+					dist[v] = next;
+					parent[v] = u;
+					queue[tail++] = v;
+				}
+			}
+		}
+		return new ShortestPathTree(g, s, dist, parent);
+	}
+
+	/**
+	 * All pairs shortest paths by one breadth first search per source, in O(n(n+E))
+	 * instead of the O(n^3) of Floyd-Warshall. Sources run in parallel. Row and column
+	 * i+1 of the result belong to the vertex at dense index i, as in floydWarshall(g).
+	 * @param g CSR graph of movieID's
+	 * @return 2D array that holds the shortest path
+	 */
+	public static int[][] allPairsBFS(CSRGraph g) {
+		final int n = g.numVertices();
+		final int[][] results = new int[n+1][];
+		results[0] = new int[n+1];
+		allPairsBFS(g, () -> new DistanceRowConsumer() {
+			@Override
+			public void accept(int source, int[] dist) {
+				int[] row = new int[n+1];
+				System.arraycopy(dist, 0, row, 1, n);
+				results[source+1] = row;
+			}
+		}, (a, b) -> a);
+		return results;
+	}
+
+	/**
+	 * All pairs shortest paths by one breadth first search per source, streamed into
+	 * consumers instead of a matrix. Every worker gets its own consumer, distance array
+	 * and queue, so memory is O(n) per worker. Consumers are combined in source order:
+	 * the first argument of combiner has always seen the earlier sources.
+	 * @param g CSR graph
+	 * @param supplier creates the consumer of a worker
+	 * @param combiner merges two consumers and returns the result
+	 * @return the consumer that has seen every source
+	 */
+	public static <T extends DistanceRowConsumer> T allPairsBFS(CSRGraph g, Supplier<T> supplier,
+			BinaryOperator<T> combiner) {
+		final int n = g.numVertices();
+		BFSWorker<T> all = IntStream.range(0, n).parallel().collect(
+				() -> new BFSWorker<T>(n, supplier.get()),
+				(worker, source) -> {
+					bfs(g, source, worker.dist, worker.queue);
+					worker.consumer.accept(source, worker.dist);
+				},
+				(left, right) -> left.consumer = combiner.apply(left.consumer, right.consumer));
+		return all.consumer;
+	}
+
+	/**
+	 * Gathers diameter, average path length, reachable pairs and the path length
+	 * histogram of a graph with one BFS per source, without an n x n matrix.
+	 * @param g CSR graph
+	 * @return the statistics over all sources
+	 */
+	public static PathStatistics pathStatistics(CSRGraph g) {
+		try(Instrumentation.Phase phase = Instrumentation.start(PhaseName.PATH_STATISTICS)) {
+			phase.items(g.numVertices());
+			return allPairsBFS(g, () -> new PathStatistics(g), PathStatistics::merge);
+		}
+	}
+
+	/**
+	 * Finds a shortest path between two movies with a bidirectional BFS that stops
+	 * once the two searches meet. For many queries on one graph, keep a PathFinder
+	 * instead so that its arrays are reused.
+	 * @param g CSR graph of movieID's
+	 * @param source movie ID the path starts at
+	 * @param target movie ID the path ends at
+	 * @return movie ID's along the path from source to target, empty if there is no path
+	 * @throws IllegalArgumentException if either vertex does not occur in the graph
+	 */
+	public static int[] shortestPath(CSRGraph g, int source, int target) {
+		return new PathFinder(g).shortestPath(source, target);
+	}
+
+	/**
+	 * Dial's algorithm for graphs whose edge lengths are small non-negative integers.
+	 * Vertices go into a ring of maxWeight+1 buckets keyed by distance only when they
+	 * are reached or improved, and stale entries are skipped when they come out, so
+	 * there is no decrease-key and the work is O(E + D) where D is the largest
+	 * distance, counted only over the part of the graph the source reaches.
+	 * @param g CSR graph, weighted or not
+	 * @param source movie ID to start from
+	 * @return the shortest path tree of the source
+	 * @throws IllegalArgumentException if the source does not occur in the graph
+	 */
+	public static ShortestPathTree dialsAlgorithm(CSRGraph g, int source) {
+		int s = g.indexOf(source);
+		if(s < 0) {
+			throw new IllegalArgumentException();
+		}
+		int n = g.numVertices();
+		int[] dist = new int[n];
+		int[] parent = new int[n];
+		boolean[] settled = new boolean[n];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		Arrays.fill(parent, -1);
+
+		int ring = g.maxWeight() + 1;
+		int[][] buckets = new int[ring][4];
+		int[] bucketSize = new int[ring];
+		int pending = 1;
+		dist[s] = 0;
+		buckets[0][bucketSize[0]++] = s;
+		for(int d=0; pending>0; d++) {
+			int b = d % ring;
+			//a zero-length edge can refill the bucket while it is emptied
+			while(bucketSize[b] > 0) {
+				int u = buckets[b][--bucketSize[b]];
+				pending--;
+				if(settled[u] || dist[u] != d) {
+					continue;//stale entry, u was reached more cheaply later
+				}
+				settled[u] = true;
+				for(int e=g.offsets[u]; e<g.offsets[u+1]; e++) {
+					int v = g.targets[e];
+					int alt = d + g.edgeWeight(e);
+					if(alt < dist[v]) {
 						dist[v] = alt;
-						prev.put(v, u);
-						Q.changePriority(alt, v);
+						parent[v] = u;
+						int vb = alt % ring;
+						if(bucketSize[vb] == buckets[vb].length) {
+							buckets[vb] = Arrays.copyOf(buckets[vb], 2*bucketSize[vb]);
+						}
+						buckets[vb][bucketSize[vb]++] = v;
+						pending++;
+					}
 				}
 			}
 		}
-		return prev;
+		return new ShortestPathTree(g, s, dist, parent);
+	}
+
+	/**
+	 * Scratch space of one all pairs BFS worker.
+	 */
+	private static class BFSWorker<T> {
+		final int[] dist;
+		final int[] queue;
+		T consumer;
+
+		/**
+		 * Constructor for a worker over n vertices.
+		 * @param n number of vertices
+		 * @param consumer where the worker's rows go
+		 */
+		BFSWorker(int n, T consumer) {
+			dist = new int[n];
+			queue = new int[n];
+			this.consumer = consumer;
+		}
 	}
 }
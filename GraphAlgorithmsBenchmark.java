@@ -0,0 +1,85 @@
+package bench;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import graph.*;
+
+/**
+ * Benchmark of the shortest path algorithms on random and synthetic movie graphs
+ * of several sizes: floydWarshall(Graph), the row-per-vertex Floyd-Warshall on the
+ * graph's cached CSR copy, next to the blocked one and to one BFS per source, and
+ * dijkstrasAlgorithm(Graph), which also works on the cached copy, next to the CSR
+ * version and a single BFS. The all-pairs benchmarks report milliseconds and the
+ * single-source ones microseconds.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class GraphAlgorithmsBenchmark {
+	private static final int DEGREE = 8;
+
+	public String shape;
+
+	public int vertices;
+
+	private Graph<Integer> graph;
+	private CSRGraph csr;
+	private int source;
+
+	/**
+	 * Runs every benchmark for every shape and size.
+	 * @param args names of the benchmarks to run, none for all
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		for(String shape : new String[] {"random", "movielens"}) {
+			for(int vertices : new int[] {250, 1000, 2000}) {
+				GraphAlgorithmsBenchmark b = new GraphAlgorithmsBenchmark();
+				b.shape = shape;
+				b.vertices = vertices;
+				b.setUp();
+				String params = "(shape=" + shape + ", vertices=" + vertices + ")";
+				BenchmarkRunner.averageTime(args, "GraphAlgorithms.floydWarshall" + params, TimeUnit.MILLISECONDS,
+						b::floydWarshall);
+				BenchmarkRunner.averageTime(args, "GraphAlgorithms.floydWarshallBlocked" + params, TimeUnit.MILLISECONDS,
+						b::floydWarshallBlocked);
+				BenchmarkRunner.averageTime(args, "GraphAlgorithms.allPairsBFS" + params, TimeUnit.MILLISECONDS,
+						b::allPairsBFS);
+				BenchmarkRunner.averageTime(args, "GraphAlgorithms.dijkstra" + params, TimeUnit.MICROSECONDS, b::dijkstra);
+				BenchmarkRunner.averageTime(args, "GraphAlgorithms.dijkstraCSR" + params, TimeUnit.MICROSECONDS,
+						b::dijkstraCSR);
+				BenchmarkRunner.averageTime(args, "GraphAlgorithms.bfsTree" + params, TimeUnit.MICROSECONDS, b::bfsTree);
+			}
+		}
+	}
+
+	public void setUp() throws Exception {
+		graph = BenchmarkGraphs.graph(shape, vertices, DEGREE, 42);
+		csr = CSRGraph.freeze(graph);
+		//the movie with the most neighbors, where path queries usually start
+		source = graph.maxVertex() == null ? 1 : graph.maxVertex();
+	}
+
+	public int[][] floydWarshall() {
+		return GraphAlgorithms.floydWarshall(graph);
+	}
+
+	public int[] floydWarshallBlocked() {
+		return GraphAlgorithms.floydWarshallBlocked(csr);
+	}
+
+	public int[][] allPairsBFS() {
+		return GraphAlgorithms.allPairsBFS(csr);
+	}
+
+	public Map<Integer, Integer> dijkstra() {
+		return GraphAlgorithms.dijkstrasAlgorithm(graph, source);
+	}
+
+	public int[] dijkstraCSR() {
+		return GraphAlgorithms.dijkstrasAlgorithm(csr, source);
+	}
+
+	public ShortestPathTree bfsTree() {
+		return GraphAlgorithms.bfsTree(csr, source);
+	}
+}
@@ -0,0 +1,107 @@
+package bench;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import graph.*;
+
+/**
+ * Benchmark of the basic Graph operations: building a graph edge by edge with
+ * addEdge, and looking edges up with edgeExists and getNeighbors. The edges are those
+ * of a random graph or of the synthetic movie graph, so that the cost of the dense
+ * vertices of the movie graph shows up.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class GraphBenchmark {
+	private static final int LOOKUPS = 10000;
+	private static final int DEGREE = 20;
+
+	public String shape;
+
+	public int vertices;
+
+	private Graph<Integer> graph;
+	private int[] from;//every edge of graph, for addEdge
+	private int[] to;
+	private int[] queryFrom;//random vertex pairs, about half of them edges
+	private int[] queryTo;
+
+	/**
+	 * Runs every benchmark for every shape and size.
+	 * @param args names of the benchmarks to run, none for all
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		for(String shape : new String[] {"random", "movielens"}) {
+			for(int vertices : new int[] {1000, 5000}) {
+				GraphBenchmark b = new GraphBenchmark();
+				b.shape = shape;
+				b.vertices = vertices;
+				b.setUp();
+				String params = "(shape=" + shape + ", vertices=" + vertices + ")";
+				BenchmarkRunner.averageTime(args, "Graph.addEdge" + params, TimeUnit.MICROSECONDS, b::addEdge);
+				BenchmarkRunner.averageTime(args, "Graph.edgeExists" + params, TimeUnit.MICROSECONDS, b::edgeExists);
+				BenchmarkRunner.averageTime(args, "Graph.getNeighbors" + params, TimeUnit.MICROSECONDS, b::getNeighbors);
+			}
+		}
+	}
+
+	public void setUp() throws Exception {
+		graph = BenchmarkGraphs.graph(shape, vertices, DEGREE, 42);
+		from = new int[graph.numEdges()];
+		to = new int[graph.numEdges()];
+		int e = 0;
+		for(Integer v : graph.getVertices()) {
+			for(Integer u : graph.getNeighbors(v)) {
+				from[e] = v;
+				to[e++] = u;
+			}
+		}
+		Random random = new Random(7);
+		queryFrom = new int[LOOKUPS];
+		queryTo = new int[LOOKUPS];
+		for(int q=0; q<LOOKUPS; q++) {
+			if(random.nextBoolean() && from.length > 0) {
+				int edge = random.nextInt(from.length);
+				queryFrom[q] = from[edge];
+				queryTo[q] = to[edge];
+			}else {
+				queryFrom[q] = 1 + random.nextInt(vertices);
+				queryTo[q] = 1 + random.nextInt(vertices);
+			}
+		}
+	}
+
+	public Graph<Integer> addEdge() {
+		Graph<Integer> g = new Graph<Integer>();
+		for(int v=1; v<=vertices; v++) {
+			g.addVertex(v);
+		}
+		for(int e=0; e<from.length; e++) {
+			g.addEdge(from[e], to[e]);
+		}
+		return g;
+	}
+
+	public int edgeExists() {
+		int found = 0;
+		for(int q=0; q<LOOKUPS; q++) {
+			if(graph.edgeExists(queryFrom[q], queryTo[q])) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	public long getNeighbors() {
+		long sum = 0;
+		for(int q=0; q<LOOKUPS; q++) {
+			List<Integer> neighbors = graph.getNeighbors(queryFrom[q]);
+			for(int i=0; i<neighbors.size(); i++) {
+				sum += neighbors.get(i);
+			}
+		}
+		return sum;
+	}
+}
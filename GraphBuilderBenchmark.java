@@ -0,0 +1,71 @@
+package bench;
+import java.util.concurrent.TimeUnit;
+import analyzer.*;
+import data.*;
+import graph.*;
+
+/**
+ * Benchmark of building the movie graphs from synthetic MovieLens-shaped ratings:
+ * the original all-pairs buildGraph1 and buildGraph2 of MovieLensAnalyzer next to the
+ * inverted-index builder, serial and on every core, and the pairwise co-viewing
+ * builder over a RatingsStore.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class GraphBuilderBenchmark {
+	public int movies;
+
+	/**
+	 * true for option 1 (same rating), false for option 2
+	 */
+	public boolean sameRating;
+
+	private DataLoader loader;
+	private RatingsStore store;
+
+	/**
+	 * Runs every benchmark for every size and adjacency option.
+	 * @param args names of the benchmarks to run, none for all
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		for(int movies : new int[] {500, 2000}) {
+			for(boolean sameRating : new boolean[] {true, false}) {
+				GraphBuilderBenchmark b = new GraphBuilderBenchmark();
+				b.movies = movies;
+				b.sameRating = sameRating;
+				b.setUp();
+				String params = "(movies=" + movies + ", sameRating=" + sameRating + ")";
+				BenchmarkRunner.averageTime(args, "GraphBuilder.allPairs" + params, TimeUnit.MILLISECONDS, b::allPairs);
+				BenchmarkRunner.averageTime(args, "GraphBuilder.inverted" + params, TimeUnit.MILLISECONDS, b::inverted);
+				BenchmarkRunner.averageTime(args, "GraphBuilder.invertedParallel" + params, TimeUnit.MILLISECONDS,
+						b::invertedParallel);
+				BenchmarkRunner.averageTime(args, "GraphBuilder.coViewing" + params, TimeUnit.MILLISECONDS, b::coViewing);
+			}
+		}
+	}
+
+	public void setUp() throws Exception {
+		loader = BenchmarkGraphs.ratings(movies, 42);
+		store = RatingsStore.fromMovies(loader.getMovies());
+	}
+
+	public Graph<Integer> allPairs() {
+		return sameRating ? MovieLensAnalyzer.buildGraph1(loader) : MovieLensAnalyzer.buildGraph2(loader);
+	}
+
+	public Graph<Integer> inverted() {
+		return sameRating ? CoRatingGraphBuilder.buildGraph1(loader) : CoRatingGraphBuilder.buildGraph2(loader);
+	}
+
+	public Graph<Integer> invertedParallel() {
+		int threads = Runtime.getRuntime().availableProcessors();
+		return sameRating ? CoRatingGraphBuilder.buildGraph1(loader, threads)
+				: CoRatingGraphBuilder.buildGraph2(loader, threads);
+	}
+
+	public Graph<Integer> coViewing() {
+		return CoRatingGraphBuilder.buildCoViewing(store, sameRating);
+	}
+}
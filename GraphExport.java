@@ -0,0 +1,120 @@
+package graph;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streams a graph out as text or binary. Output goes through a buffer of at most
+ * BUFFER_SIZE characters or bytes that is flushed whenever it fills up, so the whole
+ * export never has to fit in memory and the time grows linearly with its size. The
+ * formats are:
+ * <pre>
+ * adjacency list   "\nv: u1, u2, " for every vertex, the same text as Graph.toString
+ * edge list        "v u\n" for every edge
+ * binary edges     little endian ints: n, m, then v and u for every edge
+ * </pre>
+ * Vertices come in the order of getVertices and edges in the order of getNeighbors.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class GraphExport {
+	/**
+	 * Number of characters or bytes buffered before they are written out.
+	 */
+	public static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Writes the adjacency list of a graph in the format of Graph.toString.
+	 * @param g the graph
+	 * @param out where the text goes, it is not closed
+	 * @throws IOException if the text cannot be written
+	 */
+	public static <V> void writeAdjacencyList(GraphIfc<V> g, Writer out) throws IOException {
+		StringBuilder sb = new StringBuilder(BUFFER_SIZE);
+		for(V v : g.getVertices()) {
+			sb.append('\n').append(v).append(": ");
+			if(sb.length() >= BUFFER_SIZE) {
+				flush(sb, out);//a long run of isolated vertices fills it too
+			}
+			for(V u : g.getNeighbors(v)) {
+				sb.append(u).append(", ");
+				if(sb.length() >= BUFFER_SIZE) {
+					flush(sb, out);
+				}
+			}
+		}
+		flush(sb, out);
+		out.flush();
+	}
+
+	/**
+	 * Writes every edge of a graph on its own line, as its start and end vertex
+	 * separated by a space.
+	 * @param g the graph
+	 * @param out where the text goes, it is not closed
+	 * @throws IOException if the text cannot be written
+	 */
+	public static <V> void writeEdgeList(GraphIfc<V> g, Writer out) throws IOException {
+		StringBuilder sb = new StringBuilder(BUFFER_SIZE);
+		for(V v : g.getVertices()) {
+			for(V u : g.getNeighbors(v)) {
+				sb.append(v).append(' ').append(u).append('\n');
+				if(sb.length() >= BUFFER_SIZE) {
+					flush(sb, out);
+				}
+			}
+		}
+		flush(sb, out);
+		out.flush();
+	}
+
+	/**
+	 * Writes the edges of a graph as little endian ints: the number of vertices, the
+	 * number of edges, and then the start and end vertex of every edge. Vertices
+	 * without edges are counted but do not appear.
+	 * @param g graph of movieID's
+	 * @param out where the bytes go, it is not closed
+	 * @throws IOException if the bytes cannot be written
+	 */
+	public static void writeBinaryEdges(GraphIfc<Integer> g, WritableByteChannel out) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(g.numVertices()).putInt(g.numEdges());
+		for(Integer v : g.getVertices()) {
+			for(Integer u : g.getNeighbors(v)) {
+				if(buffer.remaining() < 8) {
+					drain(buffer, out);
+				}
+				buffer.putInt(v).putInt(u);
+			}
+		}
+		drain(buffer, out);
+	}
+
+	/**
+	 * Writes out the buffered text and empties the buffer.
+	 * @param sb buffered text
+	 * @param out where the text goes
+	 * @throws IOException if the text cannot be written
+	 */
+	private static void flush(StringBuilder sb, Writer out) throws IOException {
+		out.append(sb);
+		sb.setLength(0);
+	}
+
+	/**
+	 * Writes out the buffered bytes and empties the buffer.
+	 * @param buffer buffered bytes, in write mode
+	 * @param out where the bytes go
+	 * @throws IOException if the bytes cannot be written
+	 */
+	private static void drain(ByteBuffer buffer, WritableByteChannel out) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,195 @@
+package graph;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes CSR graphs in a binary snapshot format, so that a built graph can
+ * be opened again without loading the ratings or building it. All values are little
+ * endian ints:
+ * <pre>
+ * magic "MLGS", version, flags (bit 0: weighted), n, m
+ * ids[n]         vertex IDs, ascending
+ * offsets[n+1]   start of each vertex's edges
+ * targets[m]     dense index of each edge's end vertex
+ * weights[m]     edge lengths, only if weighted
+ * </pre>
+ * Snapshots are opened through FileChannel.map, and each section is copied into its
+ * array with a bulk get, so opening costs page faults and a memory copy, with no
+ * parsing.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class GraphSnapshot {
+	public static final int MAGIC = 0x5347_4C4D;//"MLGS" read as a little endian int
+	public static final int VERSION = 1;
+	private static final int HEADER_INTS = 5;
+	private static final int WEIGHTED = 1;
+	private static final int CHUNK_INTS = 1 << 26;//256MB per mapping or write buffer fill
+
+	/**
+	 * Writes a graph to a snapshot file, replacing the file if it exists.
+	 * @param g CSR graph to save
+	 * @param file where the snapshot goes
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(CSRGraph g, Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+			int[] header = {MAGIC, VERSION, g.weights == null ? 0 : WEIGHTED, g.ids.length, g.targets.length};
+			writeInts(channel, buffer, header);
+			writeInts(channel, buffer, g.ids);
+			writeInts(channel, buffer, g.offsets);
+			writeInts(channel, buffer, g.targets);
+			if(g.weights != null) {
+				writeInts(channel, buffer, g.weights);
+			}
+			buffer.flip();
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Opens a snapshot file.
+	 * @param file snapshot written by write
+	 * @return the graph stored in the file
+	 * @throws IOException if the file cannot be read, or is not a snapshot of this version
+	 */
+	public static CSRGraph open(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if(channel.size() < 4L*HEADER_INTS) {
+				throw new IOException("Not a graph snapshot: " + file);
+			}
+			int[] header = new int[HEADER_INTS];
+			long position = readInts(channel, 0, header);
+			if(header[0] != MAGIC) {
+				throw new IOException("Not a graph snapshot: " + file);
+			}
+			if(header[1] != VERSION) {
+				throw new IOException("Unsupported graph snapshot version " + header[1] + ": " + file);
+			}
+			boolean weighted = (header[2] & WEIGHTED) != 0;
+			int n = header[3];
+			int m = header[4];
+			//each term widened on its own, so that large counts cannot overflow the sum
+			long expected = 4L*HEADER_INTS + 4L*n + 4L*n + 4L + 4L*m + (weighted ? 4L*m : 0L);
+			if(n < 0 || n == Integer.MAX_VALUE || m < 0 || channel.size() != expected) {
+				throw new IOException("Truncated graph snapshot: " + file);
+			}
+
+			int[] ids = new int[n];
+			int[] offsets = new int[n+1];
+			int[] targets = new int[m];
+			int[] weights = weighted ? new int[m] : null;
+			position = readInts(channel, position, ids);
+			position = readInts(channel, position, offsets);
+			position = readInts(channel, position, targets);
+			if(weighted) {
+				readInts(channel, position, weights);
+			}
+			if(!isValid(ids, offsets, targets, weights)) {
+				throw new IOException("Corrupt graph snapshot: " + file);
+			}
+			try {
+				return new CSRGraph(ids, offsets, targets, weights);
+			}catch(IllegalArgumentException e) {
+				throw new IOException("Corrupt graph snapshot: " + file);
+			}
+		}
+	}
+
+	/**
+	 * Checks the sections of a snapshot against each other, so that a corrupt file is
+	 * rejected when it is opened instead of failing or giving wrong answers in later
+	 * queries.
+	 * @param ids vertex IDs, must be strictly ascending
+	 * @param offsets edge offsets, must run from 0 to m without going down
+	 * @param targets edge ends, must be dense indices from 0 to n-1
+	 * @param weights edge lengths, must not be negative, null if unweighted
+	 * @return true if the sections form a valid CSR graph
+	 */
+	private static boolean isValid(int[] ids, int[] offsets, int[] targets, int[] weights) {
+		int n = ids.length;
+		for(int i=1; i<n; i++) {
+			if(ids[i-1] >= ids[i]) {
+				return false;
+			}
+		}
+		if(offsets[0] != 0 || offsets[n] != targets.length) {
+			return false;
+		}
+		for(int i=0; i<n; i++) {
+			if(offsets[i] > offsets[i+1]) {
+				return false;
+			}
+		}
+		for(int target : targets) {
+			if(target < 0 || target >= n) {
+				return false;
+			}
+		}
+		if(weights != null) {
+			for(int weight : weights) {
+				if(weight < 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Appends ints to the write buffer, writing it out whenever it fills up.
+	 * @param channel file being written
+	 * @param buffer little endian write buffer
+	 * @param values ints to write
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+		int done = 0;
+		while(done < values.length) {
+			int count = Math.min(values.length - done, buffer.remaining() / 4);
+			if(count == 0) {
+				buffer.flip();
+				while(buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+				continue;
+			}
+			buffer.asIntBuffer().put(values, done, count);
+			buffer.position(buffer.position() + 4*count);
+			done += count;
+		}
+	}
+
+	/**
+	 * Maps a section of the file and copies it into an array.
+	 * @param channel file being read
+	 * @param position byte offset of the section
+	 * @param values array the section is copied into, its length is the section's
+	 * @return byte offset just past the section
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private static long readInts(FileChannel channel, long position, int[] values) throws IOException {
+		int done = 0;
+		while(done < values.length) {
+			int count = Math.min(values.length - done, CHUNK_INTS);
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L*count);
+			IntBuffer ints = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			ints.get(values, done, count);
+			position += 4L*count;
+			done += count;
+		}
+		return position;
+	}
+}
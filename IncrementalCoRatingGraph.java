@@ -0,0 +1,240 @@
+package analyzer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import data.*;
+import graph.*;
+import util.Instrumentation.Counter;
+import util.LongIntHashMap;
+
+/**
+ * Keeps a movie graph up to date as new ratings arrive. For every pair of movies it
+ * counts the users who rated both, or who gave both the same rating, and adds the two
+ * edges between them as soon as the count reaches SHARED_USERS. A new rating only
+ * touches the pairs it forms with the other movies of the same user, so a batch costs
+ * time in proportion to the histories of its users instead of the square of the
+ * number of movies. Graph cannot remove edges, so an edge stays once it is added even
+ * if a later change of rating drops its pair below the threshold.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class IncrementalCoRatingGraph {
+	protected final boolean sameRating;
+	protected final Graph<Integer> graph;
+	protected final Map<Integer, History> histories;//user ID to the movies they rated
+	protected final LongIntHashMap pairCounts;//shared users of each pair, smaller ID first
+
+	/**
+	 * Constructor for an empty graph.
+	 * @param sameRating true if shared users must also have given the same rating,
+	 * as in buildGraph1, false for buildGraph2
+	 */
+	public IncrementalCoRatingGraph(boolean sameRating) {
+		this.sameRating = sameRating;
+		graph = new Graph<Integer>();
+		histories = new HashMap<Integer, History>();
+		pairCounts = new LongIntHashMap();
+	}
+
+	/**
+	 * Builds the graph from the ratings already in a loader. The result has the same
+	 * vertices and edges as buildGraph1 or buildGraph2, though neighbors may be in a
+	 * different order.
+	 * @param loader contains hashmaps of the movie data
+	 * @param sameRating true if shared users must also have given the same rating
+	 * @return the graph, ready for more ratings
+	 * @throws ClassCastException if a rating is not a number
+	 */
+	public static IncrementalCoRatingGraph fromLoader(DataLoader loader, boolean sameRating) {
+		IncrementalCoRatingGraph incremental = new IncrementalCoRatingGraph(sameRating);
+		for(Movie movie : loader.getMovies().values()) {
+			incremental.addMovie(movie.getMovieId());
+			for(Map.Entry<Integer, ?> rating : movie.getRatings().entrySet()) {
+				double stars = ((Number) rating.getValue()).doubleValue();
+				incremental.apply(rating.getKey(), movie.getMovieId(), (int) Math.round(stars*2));
+			}
+		}
+		return incremental;
+	}
+
+	/**
+	 * Adds a movie without ratings, so that it is a vertex of the graph.
+	 * @param movieId movie ID
+	 */
+	public void addMovie(int movieId) {
+		graph.addVertex(movieId);
+	}
+
+	/**
+	 * Applies a batch of ratings in order. A user who rates a movie again replaces
+	 * their earlier rating.
+	 * @param users user ID of each rating
+	 * @param movies movie ID of each rating
+	 * @param halfStars each rating in half stars, 7 for 3.5 stars
+	 * @return number of edges added to the graph
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 */
+	public int applyBatch(int[] users, int[] movies, int[] halfStars) {
+		if(users.length != movies.length || users.length != halfStars.length) {
+			throw new IllegalArgumentException();
+		}
+		int before = graph.numEdges();
+		for(int i=0; i<users.length; i++) {
+			apply(users[i], movies[i], halfStars[i]);
+		}
+		return graph.numEdges() - before;
+	}
+
+	/**
+	 * Applies one rating. A user who rates a movie again replaces their earlier rating.
+	 * @param user user ID
+	 * @param movie movie ID
+	 * @param halfStars the rating in half stars, 7 for 3.5 stars
+	 */
+	public void apply(int user, int movie, int halfStars) {
+		graph.addVertex(movie);
+		History history = histories.get(user);
+		if(history == null) {
+			history = new History();
+			histories.put(user, history);
+		}
+		int slot = history.indexOf(movie);
+		if(slot < 0) {
+			for(int i=0; i<history.size; i++) {
+				if(!sameRating || history.stars[i] == halfStars) {
+					count(movie, history.movies[i], 1);
+				}
+			}
+			history.add(movie, halfStars);
+			return;
+		}
+		int old = history.stars[slot];
+		history.stars[slot] = halfStars;
+		if(!sameRating || old == halfStars) {
+			return;
+		}
+		//the user no longer agrees with the movies rated like the old rating
+		for(int i=0; i<history.size; i++) {
+			if(i == slot) {
+				continue;
+			}
+			if(history.stars[i] == old) {
+				count(movie, history.movies[i], -1);
+			}else if(history.stars[i] == halfStars) {
+				count(movie, history.movies[i], 1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of users two movies share, as counted so far.
+	 * @param movieA movie ID
+	 * @param movieB movie ID
+	 * @return number of shared users
+	 */
+	public int sharedUsers(int movieA, int movieB) {
+		return pairCounts.get(pairKey(movieA, movieB));
+	}
+
+	/**
+	 * Returns the graph being maintained. It must not be changed by the caller.
+	 * @return the graph of movieID's
+	 */
+	public Graph<Integer> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Returns the number of edges in the graph.
+	 * @return number of edges
+	 */
+	public int numEdges() {
+		return graph.numEdges();
+	}
+
+	/**
+	 * Returns the largest degree in the graph, kept up to date as edges are added.
+	 * @return maximum degree
+	 */
+	public int maxDegree() {
+		return graph.maxDegree();
+	}
+
+	/**
+	 * Returns the first vertex to reach the largest degree.
+	 * @return vertex with the maximum degree, null if there are no edges
+	 */
+	public Integer maxVertex() {
+		return graph.maxVertex();
+	}
+
+	/**
+	 * Changes the shared-user count of a pair and adds its edges when the count
+	 * reaches SHARED_USERS. Edges are never removed, so a pair whose count drops and
+	 * comes back already has them, and only edges that are new are counted.
+	 * @param a movie ID
+	 * @param b another movie ID
+	 * @param delta 1 or -1
+	 */
+	protected void count(int a, int b, int delta) {
+		int shared = pairCounts.add(pairKey(a, b), delta);
+		if(delta > 0 && shared == CoRatingGraphBuilder.SHARED_USERS) {
+			int before = graph.numEdges();
+			graph.addEdge(a, b);
+			graph.addEdge(b, a);
+			Counter.EDGES_ADDED.add(graph.numEdges() - before);
+		}
+	}
+
+	/**
+	 * Packs a pair of movies into one key with the smaller ID first, so that both
+	 * orders of the pair share a counter.
+	 * @param a movie ID
+	 * @param b movie ID
+	 * @return key of the pair
+	 */
+	private static long pairKey(int a, int b) {
+		int low = Math.min(a, b);
+		int high = Math.max(a, b);
+		return ((long) low << 32) | (high & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * The movies a user rated and their ratings, in the order they were rated.
+	 */
+	protected static class History {
+		protected int[] movies = new int[4];
+		protected int[] stars = new int[4];
+		protected int size;
+
+		/**
+		 * Finds where a movie is in the history.
+		 * @param movie movie ID
+		 * @return its position, -1 if the user has not rated it
+		 */
+		protected int indexOf(int movie) {
+			for(int i=0; i<size; i++) {
+				if(movies[i] == movie) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Adds a rating to the end of the history.
+		 * @param movie movie ID
+		 * @param halfStars the rating in half stars
+		 */
+		protected void add(int movie, int halfStars) {
+			if(size == movies.length) {
+				movies = Arrays.copyOf(movies, 2*size);
+				stars = Arrays.copyOf(stars, 2*size);
+			}
+			movies[size] = movie;
+			stars[size] = halfStars;
+			size++;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package util;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * Counters and phase timings for the hot paths of a run: how many movie pairs the
+ * graph builders compared, how many edges they added, and what the heap did inside
+ * Dijkstra's algorithm. Counters are LongAdders, which spread concurrent updates over
+ * cells instead of contending on one value, and the hot loops count in local
+ * variables and add them once per call, so the counters stay on in production. Every
+ * phase is also committed as a PhaseEvent to JDK Flight Recorder when a recording is
+ * running.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class Instrumentation {
+   /**
+    * The counted operations
+    */
+   public enum Counter {
+      PAIRS_COMPARED("Movie pairs compared"),
+      EDGES_ADDED("Edges added"),
+      HEAP_PUSHES("Heap pushes"),
+      HEAP_POPS("Heap pops"),
+      HEAP_DECREASE_KEYS("Heap decrease-keys"),
+      RELAXATIONS("Edge relaxations"),
+      VERTICES_SETTLED("Vertices settled");
+      
+      private final String label;
+      private final LongAdder count = new LongAdder();
+      
+      Counter(String label) {
+         this.label = label;
+      }
+      
+      /**
+       * Adds to the counter
+       *
+       * @param n amount to add
+       */
+      public void add(long n) {
+         count.add(n);
+      }
+      
+      /**
+       * Returns the counter's total
+       *
+       * @return the count so far
+       */
+      public long get() {
+         return count.sum();
+      }
+   }
+   
+   /**
+    * The timed phases of a run
+    */
+   public enum PhaseName {
+      LOAD_DATA("loadData"),
+      BUILD_GRAPH("buildGraph"),
+      FLOYD_WARSHALL("floydWarshall"),
+      DIJKSTRA("dijkstrasAlgorithm"),
+      PATH_STATISTICS("pathStatistics");
+      
+      private final String label;
+      private final LongAdder runs = new LongAdder();
+      private final LongAdder nanos = new LongAdder();
+      
+      PhaseName(String label) {
+         this.label = label;
+      }
+   }
+   
+   /**
+    * Starts timing a phase. The returned phase must be closed when the phase ends,
+    * best with try-with-resources.
+    *
+    * @param name the phase
+    * @return the running phase
+    */
+   public static Phase start(PhaseName name) {
+      return new Phase(name);
+   }
+   
+   /**
+    * Sets every counter and phase timing back to zero
+    */
+   public static void reset() {
+      for (Counter c : Counter.values()) {
+         c.count.reset();
+      }
+      for (PhaseName p : PhaseName.values()) {
+         p.runs.reset();
+         p.nanos.reset();
+      }
+   }
+   
+   /**
+    * Returns the counters and phase timings as lines of text
+    *
+    * @return the summary
+    */
+   public static String summary() {
+      StringBuilder sb = new StringBuilder();
+      sb.append("Phase timings:");
+      for (PhaseName p : PhaseName.values()) {
+         long runs = p.runs.sum();
+         if (runs > 0) {
+            sb.append("\n\t").append(p.label).append(": ").append(runs).append(runs == 1 ? " run, " : " runs, ")
+                  .append(p.nanos.sum() / 1000000).append(" ms");
+         }
+      }
+      sb.append("\nCounters:");
+      for (Counter c : Counter.values()) {
+         sb.append("\n\t").append(c.label).append(": ").append(c.get());
+      }
+      return sb.toString();
+   }
+   
+   /**
+    * One run of a phase, timed from start until close
+    */
+   public static class Phase implements AutoCloseable {
+      private final PhaseName name;
+      private final PhaseEvent event;
+      private final long start;
+      private long items;
+      
+      private Phase(PhaseName name) {
+         this.name = name;
+         event = new PhaseEvent();
+         event.begin();
+         start = System.nanoTime();
+      }
+      
+      /**
+       * Records how many items the phase worked on, such as movies, vertices or edges
+       *
+       * @param items number of items
+       */
+      public void items(long items) {
+         this.items = items;
+      }
+      
+      /**
+       * Ends the phase, adds its time to the totals and commits its event
+       */
+      @Override
+      public void close() {
+         name.runs.increment();
+         name.nanos.add(System.nanoTime() - start);
+         event.end();
+         if (event.shouldCommit()) {
+            event.phase = name.label;
+            event.items = items;
+            event.commit();
+         }
+      }
+   }
+}
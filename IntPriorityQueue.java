@@ -0,0 +1,306 @@
+package util;
+import java.util.Arrays;
+/**
+ * A priority queue implemented as an indexed d-ary min heap over int arrays.
+ * Priorities and elements are kept in parallel arrays and the position of every
+ * element is kept in an array indexed by the element itself, so no objects are
+ * created once the arrays are big enough. Elements and priorities cannot be
+ * negative. It has the same methods as PriorityQueue.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class IntPriorityQueue {
+   protected final int arity;
+   protected int[] priorities;// priority of the entry at each heap index
+   protected int[] elements;// element of the entry at each heap index
+   protected int[] location;// heap index of each element, -1 if absent
+   protected int size;
+   /**
+    * Constructs an empty binary heap
+    */
+   public IntPriorityQueue() {
+      this(2, 16);
+   }
+   /**
+    * Constructs an empty priority queue
+    *
+    * @param arity    number of children of each heap node, 2 for a binary heap or 4 for a 4-ary heap
+    * @param capacity expected number of elements, and one past the expected largest element
+    */
+   public IntPriorityQueue(int arity, int capacity) {
+      if (arity < 2 || capacity < 0) {
+         throw new IllegalArgumentException();
+      }
+      this.arity = arity;
+      priorities = new int[Math.max(capacity, 1)];
+      elements = new int[Math.max(capacity, 1)];
+      location = new int[Math.max(capacity, 1)];
+      Arrays.fill(location, -1);
+      size = 0;
+   }
+   
+   /**
+    * Insert a new element into the queue with the given priority.
+    *
+    * @param priority priority of element to be inserted
+    * @param element  element to be inserted
+    */
+   public void push(int priority, int element) {
+      if (priority < 0 || element < 0 || isPresent(element)) {
+         throw new AssertionError();
+      }
+      if (element >= location.length) {
+         int oldLength = location.length;
+         location = Arrays.copyOf(location, Math.max(element + 1, 2 * oldLength));
+         Arrays.fill(location, oldLength, location.length, -1);
+      }
+      if (size == elements.length) {
+         priorities = Arrays.copyOf(priorities, 2 * size);
+         elements = Arrays.copyOf(elements, 2 * size);
+      }
+      percolateUp(size++, priority, element);
+   }
+   
+   /**
+    * Insert many elements at once. The elements are appended and the heap is then
+    * rebuilt bottom up, which is O(n) instead of the O(n log n) of separate pushes.
+    *
+    * @param priorities priorities of the elements to be inserted
+    * @param elements   elements to be inserted, priorities[i] belongs to elements[i]
+    */
+   public void pushAll(int[] priorities, int[] elements) {
+      if (priorities.length != elements.length) {
+         throw new AssertionError();
+      }
+      int max = location.length - 1;
+      for (int i = 0; i < elements.length; i++) {
+         if (priorities[i] < 0 || elements[i] < 0) {
+            throw new AssertionError();
+         }
+         max = Math.max(max, elements[i]);
+      }
+      if (max >= location.length) {
+         int oldLength = location.length;
+         location = Arrays.copyOf(location, max + 1);
+         Arrays.fill(location, oldLength, location.length, -1);
+      }
+      if (size + elements.length > this.elements.length) {
+         this.priorities = Arrays.copyOf(this.priorities, size + elements.length);
+         this.elements = Arrays.copyOf(this.elements, size + elements.length);
+      }
+      // indexes every element before any is appended, so that one already queued or
+      // given twice leaves the queue as it was
+      for (int i = 0; i < elements.length; i++) {
+         if (location[elements[i]] >= 0) {
+            for (int j = 0; j < i; j++) {
+               location[elements[j]] = -1;
+            }
+            throw new AssertionError();
+         }
+         location[elements[i]] = size + i;
+      }
+      for (int i = 0; i < elements.length; i++) {
+         set(size++, priorities[i], elements[i]);
+      }
+      for (int i = parent(size - 1); i >= 0 && size > 1; i--) {
+         pushDown(i, this.priorities[i], this.elements[i]);
+      }
+   }
+   /**
+    * Remove the highest priority element.
+    *
+    */
+   public void pop() {
+      if (size == 0) {
+         throw new AssertionError();
+      }
+      location[elements[0]] = -1;
+      size--;
+      if (size > 0) {
+         pushDown(0, priorities[size], elements[size]);
+      }
+   }
+   /**
+    * Returns the highest priority in the queue
+    *
+    * @return highest priority value 
+    */
+   public int topPriority() {
+      if (size == 0) {
+         throw new AssertionError();
+      }
+      return priorities[0];
+   }
+   
+   /**
+    * Returns the element with the highest priority
+    *
+    * @return int, element with highest priority
+    */
+   public int topElement() {
+      if (size == 0) {
+         throw new AssertionError();
+      }
+      return elements[0];
+   }
+   /**
+    * Change the priority of an element already in the priority queue.
+    *
+    * @param newpriority the new priority
+    * @param element     element whose priority is to be changed 
+    */
+   public void changePriority(int newpriority, int element) {
+      if (isPresent(element) == false || newpriority < 0) {
+         throw new AssertionError();
+      }
+      int index = location[element];
+      if (newpriority > priorities[index]) {
+         pushDown(index, newpriority, element);
+      } else {
+         percolateUp(index, newpriority, element);
+      }
+   }
+   /**
+    * Gets the priority of the element
+    *
+    * @param element the element whose priority is returned
+    * @return the priority value 
+    */
+   public int getPriority(int element) {
+      if (isPresent(element) == false) {
+         throw new AssertionError();
+      }
+      return priorities[location[element]];
+   }
+   
+   /**
+    * Returns true if the priority queue contains no elements
+    *
+    * @return true if the queue contains no elements, false otherwise
+    */
+   public boolean isEmpty() {
+      return size == 0;
+   }
+   /**
+    * Returns true if the element exists in the priority queue.
+    *
+    * @return true if the element exists, false otherwise
+    */
+   public boolean isPresent(int element) {
+      return element >= 0 && element < location.length && location[element] >= 0;
+   }
+   /**
+    * Removes all elements from the priority queue
+    */
+   public void clear() {
+      for (int i = 0; i < size; i++) {
+         location[elements[i]] = -1;
+      }
+      size = 0;
+   }
+   /**
+    * Returns the number of elements in the priority queue
+    *
+    * @return number of elements in the priority queue
+    */
+   public int size() {
+      return size;
+   }
+   /*********************************************************
+    * Private helper methods
+    *********************************************************/
+   /**
+    * Moves an entry down from the given heap index until no child has a smaller
+    * priority. Children are moved up into the hole instead of swapping.
+    *
+    * @param start_index index of the hole the entry starts in
+    * @param priority    priority of the entry
+    * @param element     element of the entry
+    * @return the index in the heap where the element is finally stored
+    */
+   private int pushDown(int start_index, int priority, int element) {
+      int curr = start_index;
+      int child = firstChild(curr);
+      while (child < size) {
+         int last = Math.min(child + arity, size);
+         int smallestChild = child;
+         for (int c = child + 1; c < last; c++) {
+            if (priorities[c] < priorities[smallestChild]) {
+               smallestChild = c;
+            }
+         }
+         if (priorities[smallestChild] >= priority) {
+            break;
+         }
+         move(smallestChild, curr);
+         curr = smallestChild;
+         child = firstChild(curr);
+      }
+      set(curr, priority, element);
+      return curr;
+   }
+   /**
+    * Moves an entry up from the given heap index until its parent has a priority
+    * no larger than its own. Parents are moved down into the hole instead of swapping.
+    *
+    * @param start_index index of the hole the entry starts in
+    * @param priority    priority of the entry
+    * @param element     element of the entry
+    * @return the index in the heap where the element is finally stored
+    */
+   private int percolateUp(int start_index, int priority, int element) {
+      int curr = start_index;
+      while (curr > 0) {
+         int parent = parent(curr);
+         if (priorities[parent] <= priority) {
+            break;
+         }
+         move(parent, curr);
+         curr = parent;
+      }
+      set(curr, priority, element);
+      return curr;
+   }
+   /**
+    * Copies the entry at one heap index to another and updates its location
+    *
+    * @param from index of the entry
+    * @param to   index the entry is moved to
+    */
+   private void move(int from, int to) {
+      priorities[to] = priorities[from];
+      elements[to] = elements[from];
+      location[elements[to]] = to;
+   }
+   /**
+    * Stores an entry at a heap index and records its location
+    *
+    * @param index    heap index
+    * @param priority priority of the entry
+    * @param element  element of the entry
+    */
+   private void set(int index, int priority, int element) {
+      priorities[index] = priority;
+      elements[index] = element;
+      location[element] = index;
+   }
+   /**
+    * Computes the index of the element's first child
+    *
+    * @param parent index of element in heap
+    * @return index of element's first child in heap
+    */
+   private int firstChild(int parent) {
+      return arity * parent + 1;
+   }
+   /**
+    * Computes the index of the element's parent
+    *
+    * @param child index of element in heap
+    * @return index of element's parent in heap
+    */
+   private int parent(int child) {
+      return (child - 1) / arity;
+   }
+}
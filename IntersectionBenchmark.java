@@ -0,0 +1,138 @@
+package bench;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import data.*;
+import util.SortedIntersection;
+
+/**
+ * Benchmark of the co-rater intersection kernels: scalar merge, galloping and
+ * SIMD, plus the kernel SortedIntersection.count picks. Pairs of rater lists are drawn
+ * from the rater-list lengths of a real MovieLens ratings file when the system
+ * property movielens.ratings names one, and otherwise from a synthetic long-tailed
+ * popularity curve shaped like MovieLens 25M (a few movies with tens of thousands of
+ * raters, most with a handful). Run it with --add-modules jdk.incubator.vector for
+ * the SIMD kernel.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class IntersectionBenchmark {
+	private static final int PAIRS = 1024;
+	private static final int SYNTHETIC_MOVIES = 20000;
+	private static final int SYNTHETIC_USERS = 160000;
+
+	/**
+	 * random: both movies drawn by popularity rank; popular: both from the top 1%
+	 */
+	public String pairs;
+
+	/**
+	 * 12 stops at the graph threshold, 0 counts the whole intersection
+	 */
+	public int limit;
+
+	private int[][] left;
+	private int[][] right;
+	private int stop;
+
+	/**
+	 * Runs every kernel for every kind of pair and limit.
+	 * @param args names of the benchmarks to run, none for all
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		for(String pairs : new String[] {"random", "popular"}) {
+			for(int limit : new int[] {12, 0}) {
+				IntersectionBenchmark b = new IntersectionBenchmark();
+				b.pairs = pairs;
+				b.limit = limit;
+				b.setUp();
+				String params = "(pairs=" + pairs + ", limit=" + limit + ")";
+				BenchmarkRunner.averageTime(args, "Intersection.scalar" + params, TimeUnit.MICROSECONDS, b::scalar);
+				BenchmarkRunner.averageTime(args, "Intersection.galloping" + params, TimeUnit.MICROSECONDS, b::galloping);
+				BenchmarkRunner.averageTime(args, "Intersection.vectorized" + params, TimeUnit.MICROSECONDS, b::vectorized);
+				BenchmarkRunner.averageTime(args, "Intersection.dispatched" + params, TimeUnit.MICROSECONDS, b::dispatched);
+			}
+		}
+	}
+
+	public void setUp() throws Exception {
+		int[][] lists = raterLists();
+		//most popular first, so that the popular pairs come from the head
+		java.util.Arrays.sort(lists, (x, y) -> y.length - x.length);
+		Random random = new Random(42);
+		int range = pairs.equals("popular") ? Math.max(1, lists.length / 100) : lists.length;
+		left = new int[PAIRS][];
+		right = new int[PAIRS][];
+		for(int p=0; p<PAIRS; p++) {
+			left[p] = lists[random.nextInt(range)];
+			right[p] = lists[random.nextInt(range)];
+		}
+		stop = limit == 0 ? Integer.MAX_VALUE : limit;
+	}
+
+	public int scalar() {
+		int total = 0;
+		for(int p=0; p<PAIRS; p++) {
+			total += SortedIntersection.scalarCount(left[p], right[p], stop);
+		}
+		return total;
+	}
+
+	public int galloping() {
+		int total = 0;
+		for(int p=0; p<PAIRS; p++) {
+			int[] a = left[p].length <= right[p].length ? left[p] : right[p];
+			int[] b = a == left[p] ? right[p] : left[p];
+			total += SortedIntersection.gallopingCount(a, b, stop);
+		}
+		return total;
+	}
+
+	public int vectorized() {
+		int total = 0;
+		for(int p=0; p<PAIRS; p++) {
+			total += SortedIntersection.vectorizedCount(left[p], right[p], stop);
+		}
+		return total;
+	}
+
+	public int dispatched() {
+		int total = 0;
+		for(int p=0; p<PAIRS; p++) {
+			total += SortedIntersection.count(left[p], right[p], stop);
+		}
+		return total;
+	}
+
+	/**
+	 * Loads the sorted rater list of every movie, from a real ratings file if one is
+	 * configured, otherwise synthetic.
+	 * @return sorted user IDs of each movie
+	 * @throws Exception if the ratings file cannot be read
+	 */
+	private static int[][] raterLists() throws Exception {
+		String file = System.getProperty("movielens.ratings");
+		if(file != null) {
+			RatingsStore store = RatingsStore.fromTable(RatingsParser.parse(file));
+			int[][] lists = new int[store.numMovies()][];
+			for(int i=0; i<lists.length; i++) {
+				lists[i] = store.raters(store.movieIdAt(i));
+			}
+			return lists;
+		}
+		//the movie of rank r has about 80000 / r^1.1 raters
+		Random random = new Random(7);
+		int[][] lists = new int[SYNTHETIC_MOVIES][];
+		for(int r=0; r<SYNTHETIC_MOVIES; r++) {
+			int length = Math.max(1, (int)(80000 / Math.pow(r+1, 1.1)));
+			BitSet users = new BitSet(SYNTHETIC_USERS);
+			while(users.cardinality() < length) {
+				users.set(random.nextInt(SYNTHETIC_USERS));
+			}
+			lists[r] = users.stream().toArray();
+		}
+		return lists;
+	}
+}
@@ -0,0 +1,130 @@
+package util;
+import java.util.Arrays;
+/**
+ * A hash map from long keys to int values with open addressing and linear probing
+ * over two parallel arrays, so no object is created per entry. Absent keys have the
+ * value 0 and entries cannot be removed, which is what counters need.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class LongIntHashMap {
+   private static final long EMPTY = Long.MIN_VALUE;// marks a free slot, cannot be used as a key
+   protected long[] keys;
+   protected int[] values;
+   protected int size;
+   /**
+    * Constructs an empty map
+    */
+   public LongIntHashMap() {
+      this(16);
+   }
+   /**
+    * Constructs an empty map
+    *
+    * @param capacity expected number of keys
+    */
+   public LongIntHashMap(int capacity) {
+      if (capacity < 0) {
+         throw new IllegalArgumentException();
+      }
+      int slots = Integer.highestOneBit(Math.max(4, capacity * 2 - 1)) << 1;
+      keys = new long[slots];
+      values = new int[slots];
+      Arrays.fill(keys, EMPTY);
+      size = 0;
+   }
+   
+   /**
+    * Returns the value of a key
+    *
+    * @param key any key but Long.MIN_VALUE
+    * @return the value, 0 if the key is absent
+    */
+   public int get(long key) {
+      int mask = keys.length - 1;
+      for (int i = slot(key, mask);; i = (i + 1) & mask) {
+         if (keys[i] == key) {
+            return values[i];
+         }
+         if (keys[i] == EMPTY) {
+            return 0;
+         }
+      }
+   }
+   
+   /**
+    * Adds delta to the value of a key, adding the key if it is absent
+    *
+    * @param key   any key but Long.MIN_VALUE
+    * @param delta amount to add
+    * @return the new value
+    */
+   public int add(long key, int delta) {
+      if (key == EMPTY) {
+         throw new IllegalArgumentException();
+      }
+      int mask = keys.length - 1;
+      int i = slot(key, mask);
+      while (keys[i] != key) {
+         if (keys[i] == EMPTY) {
+            if (2 * (size + 1) > keys.length) {
+               grow();
+               return add(key, delta);
+            }
+            keys[i] = key;
+            size++;
+            break;
+         }
+         i = (i + 1) & mask;
+      }
+      values[i] += delta;
+      return values[i];
+   }
+   
+   /**
+    * Returns the number of keys in the map
+    *
+    * @return number of keys
+    */
+   public int size() {
+      return size;
+   }
+   
+   /*********************************************************
+    * Private helper methods
+    *********************************************************/
+   /**
+    * Finds the first slot to probe for a key
+    *
+    * @param key  the key
+    * @param mask number of slots minus one
+    * @return slot index
+    */
+   private static int slot(long key, int mask) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+   }
+   
+   /**
+    * Doubles the number of slots and reinserts every key
+    */
+   private void grow() {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new long[oldKeys.length * 2];
+      values = new int[oldValues.length * 2];
+      Arrays.fill(keys, EMPTY);
+      int mask = keys.length - 1;
+      for (int k = 0; k < oldKeys.length; k++) {
+         if (oldKeys[k] != EMPTY) {
+            int i = slot(oldKeys[k], mask);
+            while (keys[i] != EMPTY) {
+               i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[k];
+            values[i] = oldValues[k];
+         }
+      }
+   }
+}
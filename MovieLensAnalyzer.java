@@ -1,9 +1,13 @@
 package analyzer;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Scanner;
 import java.util.Map;
 import data.*;
 import graph.*;
 import util.*;
+import util.Instrumentation.Counter;
+import util.Instrumentation.PhaseName;
 import java.util.InputMismatchException;
 
 /**
@@ -16,10 +20,19 @@ public class MovieLensAnalyzer{
 		// Your program should take two command-line arguments: 
 		// 1. A ratings file
 		// 2. A movies file with information on each movie e.g. the title and genres		
-		if(args.length != 2){
+		// or five for a batch of queries without the menu:
+		// 3. The adjacency option, 1 or 2
+		// 4. A query file, as read by BatchQueryRunner
+		// 5. A file the answers are written to
+		if(args.length != 2 && args.length != 5){
 			System.err.println("Usage: java MovieLensAnalyzer [ratings_file] [movie_title_file]");
+			System.err.println("   or: java MovieLensAnalyzer [ratings_file] [movie_title_file] [graph_option 1-2] [query_file] [output_file]");
 			System.exit(-1);
-		}		
+		}
+		if(args.length == 5) {
+			runBatch(args);
+			return;
+		}
 		System.out.println("========================= Welcome to MoveLens Analyzer ==================");
 		System.out.println("The files being analyzed are: ");
 		System.out.println(args[0]);
@@ -40,11 +53,11 @@ public class MovieLensAnalyzer{
 			String option = scan.nextLine();
 			if(option.equals("1")) {
 				System.out.println("Building graph...");
-				g = buildGraph1(loader);
+				g = CoRatingGraphBuilder.buildGraph1(loader, Runtime.getRuntime().availableProcessors());
 			}
 			else if(option.equals("2")) {
 				System.out.println("Building graph...");
-				g = buildGraph2(loader);
+				g = CoRatingGraphBuilder.buildGraph2(loader, Runtime.getRuntime().availableProcessors());
 			}else {
 				System.out.println("Please enter a number 1-2.");
 				scan.close();
@@ -55,6 +68,7 @@ public class MovieLensAnalyzer{
 
 		String option2;
 		Scanner scan2 = new Scanner(System.in);
+		ShortestPathCache paths = new ShortestPathCache(g, ShortestPathCache.DEFAULT_MAX_BYTES);//reused for every path query
 		try {
 			do {
 				//prints out the analyzing options for the user
@@ -62,10 +76,11 @@ public class MovieLensAnalyzer{
 				System.out.println("[Option 1] Print out statistics about the graph.");
 				System.out.println("[Option 2] Print node information.");
 				System.out.println("[Option 3] Display shortest path between two nodes.");
-				System.out.println("[Option 4] Quit.");
+				System.out.println("[Option 4] Print instrumentation summary.");
+				System.out.println("[Option 5] Quit.");
 
 				//prompts the user to choose an option when analyzing the graph
-				System.out.println("Choose an option. (1-4)");
+				System.out.println("Choose an option. (1-5)");
 				option2 = scan.nextLine();
 				if(option2.equals("1")) { //printing out option 1 information
 					graphStats(g);
@@ -74,11 +89,13 @@ public class MovieLensAnalyzer{
 					int movieID = scan2.nextInt();
 					nodeStats(loader, g, movieID);
 				}else if(option2.equals("3")) { //printing out option 3 information	
-					findShortestPath(loader, g);
-				}else if(!option2.equals("4")) {
-					System.out.println("Please enter a number 1-4.");
+					findShortestPath(loader, paths);
+				}else if(option2.equals("4")) { //counters and phase timings so far
+					System.out.println(Instrumentation.summary());
+				}else if(!option2.equals("5")) {
+					System.out.println("Please enter a number 1-5.");
 				}
-			}while(!option2.equals("4"));
+			}while(!option2.equals("5"));
 			System.out.println("Exiting... bye.");
 			System.exit(0);
 		}catch(InputMismatchException e) {
@@ -97,6 +114,8 @@ public class MovieLensAnalyzer{
  * @param loader contains hashmaps of the movie data
  */
 public static Graph<Integer> buildGraph1(DataLoader loader){
+	Instrumentation.Phase phase = Instrumentation.start(PhaseName.BUILD_GRAPH);
+	long compared = 0;
 	int sharedUsers = 0;
 	Graph<Integer> graph = new Graph<Integer>();
 	Map<Integer, Movie> movies = loader.getMovies();
@@ -106,6 +125,7 @@ public static Graph<Integer> buildGraph1(DataLoader loader){
 			graph.addVertex(k.getMovieId());
 			sharedUsers = 0;
 			if(m.equals(k)==false) {
+				compared++;
 				for(Integer u : m.getRatings().keySet()) {
 					if(k.getRatings().containsKey(u)) {
 						if(m.getRatings().get(u).equals(k.getRatings().get(u))) {		
@@ -122,6 +142,10 @@ public static Graph<Integer> buildGraph1(DataLoader loader){
 		}
 		
 	}
+	Counter.PAIRS_COMPARED.add(compared);
+	Counter.EDGES_ADDED.add(graph.numEdges());
+	phase.items(movies.size());
+	phase.close();
 	return graph;
 }
 
@@ -131,6 +155,8 @@ public static Graph<Integer> buildGraph1(DataLoader loader){
  * @param loader contains hashmaps of movie data 
  */
 public static Graph<Integer> buildGraph2(DataLoader loader) {
+	Instrumentation.Phase phase = Instrumentation.start(PhaseName.BUILD_GRAPH);
+	long compared = 0;
 	int sharedUsers = 0;
 	Graph<Integer> graph = new Graph<Integer>();
 	Map<Integer, Movie> movies = loader.getMovies();
@@ -140,6 +166,7 @@ public static Graph<Integer> buildGraph2(DataLoader loader) {
 			graph.addVertex(k.getMovieId());
 			sharedUsers = 0;
 			if(m.equals(k)==false) {
+				compared++;
 				for(Integer u : m.getRatings().keySet()) {
 					if(k.getRatings().containsKey(u) == true) {
 						sharedUsers++;
@@ -154,6 +181,10 @@ public static Graph<Integer> buildGraph2(DataLoader loader) {
 		}
 		
 	}
+	Counter.PAIRS_COMPARED.add(compared);
+	Counter.EDGES_ADDED.add(graph.numEdges());
+	phase.items(movies.size());
+	phase.close();
 	return graph;
 }
 
@@ -164,7 +195,10 @@ public static Graph<Integer> buildGraph2(DataLoader loader) {
  * @param loader loads in the files 
  */
 public static void loadingData(String movieFile, String reviewFile, DataLoader loader) {
-	loader.loadData(movieFile, reviewFile);
+	try(Instrumentation.Phase phase = Instrumentation.start(PhaseName.LOAD_DATA)) {
+		loader.loadData(movieFile, reviewFile);
+		phase.items(loader.getMovies().size());
+	}
 }
 
 /**
@@ -172,19 +206,37 @@ public static void loadingData(String movieFile, String reviewFile, DataLoader l
  * @param Graph g, graph to be analyzed
  */
 public static void graphStats(Graph<Integer> g) {
+	graphStats(g, System.out);
+}
+
+/**
+ * Prints Option 1 statistics about the graph to a stream
+ * @param Graph g, graph to be analyzed
+ * @param out stream the statistics are printed to
+ */
+public static void graphStats(Graph<Integer> g, PrintStream out) {
 	int vertices = g.numVertices();
 	int edges = g.numEdges();
-	System.out.println("Number of nodes: " + vertices);
-	System.out.println("Number of edges: " + edges);
+	out.println("Number of nodes: " + vertices);
+	out.println("Number of edges: " + edges);
 	double density = (edges / (double) (vertices*(vertices-1)));
-	System.out.println("Density of the graph: " + density);
+	out.println("Density of the graph: " + density);
 	int maxVertex = g.maxVertex();
 	int degreeValue = g.degree(maxVertex);
-	System.out.println("Maximum degree: " + degreeValue + "(node " + maxVertex + ")");
-	int[][] shortestPath = g.floydWarshall(g);
-	longPath(shortestPath);
-	double avg = avgShortestPath(shortestPath);
-	System.out.println("Average length of the shortest paths: " + avg );
+	out.println("Maximum degree: " + degreeValue + "(node " + maxVertex + ")");
+	//every edge has length 1, so one BFS per source replaces Floyd-Warshall
+	CSRGraph csr = CSRGraph.frozen(g);
+	PathStatistics stats = GraphAlgorithms.pathStatistics(csr);
+	//with no path of positive length the endpoints are printed as 0, as before
+	int diameterStart = stats.diameter() == 0 ? 0 : stats.diameterStart();
+	int diameterEnd = stats.diameter() == 0 ? 0 : stats.diameterEnd();
+	out.println("Diameter: " + stats.diameter() + " (from " + diameterStart + " to " + diameterEnd + ")");
+	out.println("Average length of the shortest paths: " + stats.averagePathLength() );
+	out.println("Reachable pairs: " + stats.reachablePairs());
+	long[] histogram = stats.pathLengthHistogram();
+	for(int length=1; length<histogram.length; length++) {
+		out.println("\tPaths of length " + length + ": " + histogram[length]);
+	}
 }
 
 /**
@@ -195,12 +247,24 @@ public static void graphStats(Graph<Integer> g) {
  * @param movieID, the movie the stats are about
  */
 public static void nodeStats(DataLoader loader, Graph<Integer> g, Integer movieID) {
+	nodeStats(loader, g, movieID, System.out);
+}
+
+/**
+ * Prints Option 2 statistics about the node to a stream
+ * 
+ * @param loader data from csv files
+ * @param Graph g, graph to be analyzed
+ * @param movieID, the movie the stats are about
+ * @param out stream the statistics are printed to
+ */
+public static void nodeStats(DataLoader loader, Graph<Integer> g, Integer movieID, PrintStream out) {
 	Map<Integer, Movie> movies = loader.getMovies();
 	Movie movie = movies.get(movieID);
-	System.out.println(movie.toString());
-	System.out.println("Neighbors: ");
+	out.println(movie.toString());
+	out.println("Neighbors: ");
 	for (Integer n : g.getNeighbors(movieID)) {
-		System.out.println("\t" + movies.get(n).getTitle());
+		out.println("\t" + movies.get(n).getTitle());
 	}
 }
 
@@ -258,27 +322,89 @@ public static int longPath(int[][] shortestPath) {
  * @param g graph that holds movieIDs
  */
 public static void findShortestPath(DataLoader loader, Graph<Integer> g ) {
+	findShortestPath(loader, new PathFinder(CSRGraph.frozen(g)));
+}
+
+/**
+ * Finds the shortest path between the start and end node entered in by
+ * the user with a bidirectional BFS. Prints that path
+ * @param loader data from csv files
+ * @param finder path finder over the graph that holds movieIDs
+ */
+public static void findShortestPath(DataLoader loader, PathFinder finder) {
+	Scanner scan = new Scanner(System.in);
+	System.out.println("Enter starting node (1-1000): ");
+	int startNode = scan.nextInt();
+	System.out.println("Enter ending node: ");
+	int endNode = scan.nextInt();
+	printPath(loader, finder.shortestPath(startNode, endNode), System.out);
+}
+
+/**
+ * Finds the shortest path between the start and end node entered in by
+ * the user from the cached shortest path tree of the start node, searching
+ * only if the start node was not asked before. Prints that path
+ * @param loader data from csv files
+ * @param paths cache of shortest path trees over the graph that holds movieIDs
+ */
+public static void findShortestPath(DataLoader loader, ShortestPathCache paths) {
 	Scanner scan = new Scanner(System.in);
 	System.out.println("Enter starting node (1-1000): ");
 	int startNode = scan.nextInt();
 	System.out.println("Enter ending node: ");
 	int endNode = scan.nextInt();
-	Map<Integer, Integer> path = g.dijkstrasAlgorithm(g, startNode);
+	printPath(loader, paths.shortestPath(startNode, endNode), System.out);
+}
+
+/**
+ * Prints a path from its end node back to its start, one edge per line
+ * @param loader data from csv files
+ * @param path movieIDs along the path from start to end, empty if there is none
+ * @param out stream the path is printed to
+ */
+public static void printPath(DataLoader loader, int[] path, PrintStream out) {
 	Map<Integer, Movie> movies = loader.getMovies();
-	int currentMovieID = endNode;
-	if(path.get(currentMovieID)==null) {
-		System.out.println("This node has no neighbors");
+	if(path.length == 0) {
+		out.println("There is no path between these movies");
+		return;
+	}
+	if(path.length == 1) {
+		out.println("The start and end movies are the same");
+		return;
+	}
+	//printed from the end node back to the start, one edge per line
+	for(int i=path.length-1; i>0; i--) {
+		out.println(movies.get(path[i]).getTitle() + "==>" 
+				+ movies.get(path[i-1]).getTitle());
+	}
+}
+
+/**
+ * Answers a file of queries without the menu, for the five argument form of main.
+ * Loads the data, builds the graph chosen by the third argument, and writes the
+ * answers to the queries in the fourth argument to the file in the fifth
+ * @param args command-line arguments of main
+ */
+public static void runBatch(String[] args) {
+	DataLoader loader = new DataLoader();
+	loadingData(args[0], args[1], loader);
+	Graph<Integer> g;
+	if(args[2].equals("1")) {
+		g = CoRatingGraphBuilder.buildGraph1(loader, Runtime.getRuntime().availableProcessors());
+	}else if(args[2].equals("2")) {
+		g = CoRatingGraphBuilder.buildGraph2(loader, Runtime.getRuntime().availableProcessors());
+	}else {
+		System.err.println("The graph option must be 1 or 2.");
 		System.exit(-1);
+		return;
 	}
-	int parentMovieID = path.get(currentMovieID);
-	while(parentMovieID != startNode){
-		System.out.println(movies.get(currentMovieID).getTitle() + "==>" 
-				+ movies.get(parentMovieID).getTitle());
-		currentMovieID = parentMovieID;
-		parentMovieID = path.get(parentMovieID);
+	try {
+		long start = System.nanoTime();
+		int queries = new BatchQueryRunner(loader, g).run(args[3], args[4]);
+		System.out.println("Answered " + queries + " queries in " + (System.nanoTime() - start) / 1000000 + " ms");
+	}catch(IOException e) {
+		System.err.println("Could not run the queries: " + e.getMessage());
+		System.exit(-1);
 	}
-	System.out.println(movies.get(currentMovieID).getTitle() + "==>" 
-			+ movies.get(parentMovieID).getTitle());
 }
 }
-
@@ -0,0 +1,151 @@
+package graph;
+import java.util.Arrays;
+
+/**
+ * Answers point to point shortest path queries on a CSR graph with a bidirectional
+ * breadth first search. The search grows whichever side has the smaller frontier and
+ * stops at the end of the first level where the two sides meet, so a query only
+ * touches the vertices within about half the path length of either end. The scratch
+ * arrays are reused between queries, so one PathFinder should serve many queries,
+ * but only from one thread at a time.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class PathFinder {
+	protected final CSRGraph g;
+	protected final CSRGraph reverse;
+	private final int[] seenForward;//stamp of the query that reached each vertex from the source
+	private final int[] seenBackward;//stamp of the query that reached each vertex from the target
+	private final int[] distForward;
+	private final int[] distBackward;
+	private final int[] parentForward;//next vertex toward the source
+	private final int[] parentBackward;//next vertex toward the target
+	private final int[] queueForward;
+	private final int[] queueBackward;
+	private int stamp;
+
+	/**
+	 * Constructor for a path finder over a graph.
+	 * @param g CSR graph of movieID's
+	 */
+	public PathFinder(CSRGraph g) {
+		this.g = g;
+		this.reverse = g.reverse();
+		int n = g.numVertices();
+		seenForward = new int[n];
+		seenBackward = new int[n];
+		distForward = new int[n];
+		distBackward = new int[n];
+		parentForward = new int[n];
+		parentBackward = new int[n];
+		queueForward = new int[n];
+		queueBackward = new int[n];
+		stamp = 0;
+	}
+
+	/**
+	 * Returns the graph this finder searches.
+	 * @return the CSR graph
+	 */
+	public CSRGraph getGraph() {
+		return g;
+	}
+
+	/**
+	 * Finds a shortest path between two movies.
+	 * @param source movie ID the path starts at
+	 * @param target movie ID the path ends at
+	 * @return movie ID's along the path from source to target, empty if there is no path
+	 * @throws IllegalArgumentException if either vertex does not occur in the graph
+	 */
+	public int[] shortestPath(int source, int target) {
+		int s = g.indexOf(source);
+		int t = g.indexOf(target);
+		if(s < 0 || t < 0) {
+			throw new IllegalArgumentException();
+		}
+		if(s == t) {
+			return new int[] {source};
+		}
+		nextStamp();
+		seenForward[s] = stamp;
+		distForward[s] = 0;
+		queueForward[0] = s;
+		seenBackward[t] = stamp;
+		distBackward[t] = 0;
+		queueBackward[0] = t;
+		int headF = 0, tailF = 1;
+		int headB = 0, tailB = 1;
+		int meet = -1;
+		int best = Integer.MAX_VALUE;
+
+		while(headF < tailF && headB < tailB && meet < 0) {
+			if(tailF - headF <= tailB - headB) {
+				int end = tailF;
+				for(; headF<end; headF++) {
+					int u = queueForward[headF];
+					for(int e=g.offsets[u]; e<g.offsets[u+1]; e++) {
+						int v = g.targets[e];
+						if(seenForward[v] != stamp) {
+							seenForward[v] = stamp;
+							distForward[v] = distForward[u] + 1;
+							parentForward[v] = u;
+							queueForward[tailF++] = v;
+							if(seenBackward[v] == stamp && distForward[v] + distBackward[v] < best) {
+								best = distForward[v] + distBackward[v];
+								meet = v;
+							}
+						}
+					}
+				}
+			}else {
+				int end = tailB;
+				for(; headB<end; headB++) {
+					int u = queueBackward[headB];
+					for(int e=reverse.offsets[u]; e<reverse.offsets[u+1]; e++) {
+						int v = reverse.targets[e];
+						if(seenBackward[v] != stamp) {
+							seenBackward[v] = stamp;
+							distBackward[v] = distBackward[u] + 1;
+							parentBackward[v] = u;
+							queueBackward[tailB++] = v;
+							if(seenForward[v] == stamp && distForward[v] + distBackward[v] < best) {
+								best = distForward[v] + distBackward[v];
+								meet = v;
+							}
+						}
+					}
+				}
+			}
+		}
+		if(meet < 0) {
+			return new int[0];
+		}
+
+		int[] path = new int[best+1];
+		int i = distForward[meet];
+		for(int v=meet; i>=0; i--) {
+			path[i] = g.ids[v];
+			v = parentForward[v];
+		}
+		i = distForward[meet];
+		for(int v=meet; v!=t; ) {
+			v = parentBackward[v];
+			path[++i] = g.ids[v];
+		}
+		return path;
+	}
+
+	/**
+	 * Moves to the stamp of a new query, clearing the marks when the stamps run out.
+	 */
+	private void nextStamp() {
+		if(stamp == Integer.MAX_VALUE) {
+			Arrays.fill(seenForward, 0);
+			Arrays.fill(seenBackward, 0);
+			stamp = 0;
+		}
+		stamp++;
+	}
+}
@@ -0,0 +1,134 @@
+package graph;
+import java.util.Arrays;
+
+/**
+ * Folds shortest path distance rows into the diameter of the graph and its endpoints,
+ * the average length of the shortest paths, the number of reachable pairs and a
+ * histogram of path lengths, all in one pass over each row. Only O(diameter) state is
+ * kept, so rows can be streamed from one source at a time. The results match longPath
+ * and avgShortestPath in MovieLensAnalyzer: the zero-length path from each vertex to
+ * itself counts toward the average, and the diameter is the first longest pair in
+ * source order.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class PathStatistics implements DistanceRowConsumer {
+	protected final CSRGraph g;
+	protected int diameter;
+	protected int start;//dense index of the diameter's first vertex, -1 if none
+	protected int end;//dense index of the diameter's last vertex, -1 if none
+	protected long totalLength;
+	protected long paths;//pairs with a path, including each vertex with itself
+	protected long[] histogram;//number of pairs at each path length
+
+	/**
+	 * Constructor for empty statistics.
+	 * @param g graph the rows come from
+	 */
+	public PathStatistics(CSRGraph g) {
+		this.g = g;
+		diameter = 0;
+		start = -1;
+		end = -1;
+		totalLength = 0;
+		paths = 0;
+		histogram = new long[8];
+	}
+
+	/**
+	 * Adds the distances from one source.
+	 * @param source dense index of the source vertex
+	 * @param dist distance from the source to each dense index
+	 */
+	@Override
+	public void accept(int source, int[] dist) {
+		for(int j=0; j<dist.length; j++) {
+			int d = dist[j];
+			if(d != Integer.MAX_VALUE) {
+				totalLength += d;
+				paths++;
+				if(d >= histogram.length) {
+					histogram = Arrays.copyOf(histogram, Math.max(d+1, 2*histogram.length));
+				}
+				histogram[d]++;
+				if(d > diameter) {
+					diameter = d;
+					start = source;
+					end = j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds statistics gathered from later sources into this one.
+	 * @param other statistics of sources that come after the ones in this
+	 * @return this
+	 */
+	public PathStatistics merge(PathStatistics other) {
+		totalLength += other.totalLength;
+		paths += other.paths;
+		if(other.histogram.length > histogram.length) {
+			histogram = Arrays.copyOf(histogram, other.histogram.length);
+		}
+		for(int d=0; d<other.histogram.length; d++) {
+			histogram[d] += other.histogram[d];
+		}
+		if(other.diameter > diameter) {
+			diameter = other.diameter;
+			start = other.start;
+			end = other.end;
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the longest shortest path.
+	 * @return the diameter
+	 */
+	public int diameter() {
+		return diameter;
+	}
+
+	/**
+	 * Returns the movie ID the diameter starts at.
+	 * @return vertex ID, or -1 if no path has positive length
+	 */
+	public int diameterStart() {
+		return start < 0 ? -1 : g.vertexId(start);
+	}
+
+	/**
+	 * Returns the movie ID the diameter ends at.
+	 * @return vertex ID, or -1 if no path has positive length
+	 */
+	public int diameterEnd() {
+		return end < 0 ? -1 : g.vertexId(end);
+	}
+
+	/**
+	 * Returns the average length of the shortest paths.
+	 * @return average path length
+	 */
+	public double averagePathLength() {
+		return (double)totalLength / paths;
+	}
+
+	/**
+	 * Returns the number of ordered pairs of distinct vertices with a path between them.
+	 * @return number of reachable pairs
+	 */
+	public long reachablePairs() {
+		return paths - histogram[0];
+	}
+
+	/**
+	 * Returns how many ordered pairs are at each distance. Entry 0 counts each vertex
+	 * with itself.
+	 * @return array of length diameter()+1 with the number of pairs at each path length
+	 */
+	public long[] pathLengthHistogram() {
+		return Arrays.copyOf(histogram, diameter+1);
+	}
+}
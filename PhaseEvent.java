@@ -0,0 +1,25 @@
+package util;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * A JDK Flight Recorder event for one phase of a run, committed by
+ * Instrumentation.Phase. Its duration is the time the phase took.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+@Name("movielens.Phase")
+@Label("MovieLens Phase")
+@Category("MovieLens")
+@Description("Loading, graph building or a graph algorithm")
+public class PhaseEvent extends Event {
+   @Label("Phase")
+   public String phase;
+   
+   @Label("Items")
+   @Description("Movies, vertices or edges the phase worked on")
+   public long items;
+}
@@ -23,6 +23,18 @@ public class PriorityQueue {
       location = new HashMap<Integer, Integer>();
    }
    
+   /**
+    * Constructs a priority queue holding the given elements
+    *
+    * @param priorities priorities of the elements
+    * @param elements   elements of the queue, priorities[i] belongs to elements[i]
+    */
+   public PriorityQueue(int[] priorities, int[] elements) {
+      heap = new ArrayList<Pair<Integer, Integer>>(elements.length);
+      location = new HashMap<Integer, Integer>(2 * elements.length);
+      pushAll(priorities, elements);
+   }
+   
    /**
     * Insert a new element into the queue with the given priority.
     *
@@ -46,10 +58,44 @@ public class PriorityQueue {
          heap.add(newPair);
       } catch (AssertionError e) {
       }
-      int indexInArray = heap.indexOf(newPair);
+      int indexInArray = heap.size() - 1;// the new pair is always the last one
       location.put(element, indexInArray);// adds the new pair values to the hash map
-      int currIndex = heap.indexOf(newPair);
-      percolateUp(currIndex);
+      percolateUp(indexInArray);
+   }
+   
+   /**
+    * Insert many elements at once. The elements are appended and the heap is then
+    * rebuilt bottom up, which is O(n) instead of the O(n log n) of separate pushes.
+    *
+    * @param priorities priorities of the elements to be inserted
+    * @param elements   elements to be inserted, priorities[i] belongs to elements[i]
+    */
+   public void pushAll(int[] priorities, int[] elements) {
+      if (priorities.length != elements.length) {
+         throw new AssertionError();
+      }
+      for (int i = 0; i < elements.length; i++) {
+         if (priorities[i] < 0) {
+            throw new AssertionError();
+         }
+      }
+      // indexes every element before any is appended, so that one already queued or
+      // given twice leaves the queue as it was
+      int start = heap.size();
+      for (int i = 0; i < elements.length; i++) {
+         if (location.putIfAbsent(elements[i], start + i) != null) {
+            for (int j = 0; j < i; j++) {
+               location.remove(elements[j]);
+            }
+            throw new AssertionError();
+         }
+      }
+      for (int i = 0; i < elements.length; i++) {
+         heap.add(new Pair<Integer, Integer>(priorities[i], elements[i]));
+      }
+      for (int i = heap.size() / 2 - 1; i >= 0; i--) {
+         pushDown(i);
+      }
    }
    /**
     * Remove the highest priority element.
@@ -0,0 +1,131 @@
+package bench;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import util.IntPriorityQueue;
+import util.PriorityQueue;
+
+/**
+ * Benchmark of the heap operations Dijkstra's algorithm uses: filling the queue,
+ * popping it empty, and lowering priorities. Each benchmark runs the same operations
+ * on util.PriorityQueue and on util.IntPriorityQueue with a binary and a 4-ary heap.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class PriorityQueueBenchmark {
+	public int size;
+
+	/**
+	 * list: util.PriorityQueue, binary and quad: IntPriorityQueue of arity 2 and 4
+	 */
+	public String heap;
+
+	private int[] priorities;
+	private int[] elements;
+	private int[] lowered;//new priorities for changePriority, below the old ones
+
+	/**
+	 * Runs every benchmark for every size and queue.
+	 * @param args names of the benchmarks to run, none for all
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		for(int size : new int[] {1000, 100000}) {
+			for(String heap : new String[] {"list", "binary", "quad"}) {
+				PriorityQueueBenchmark b = new PriorityQueueBenchmark();
+				b.size = size;
+				b.heap = heap;
+				b.setUp();
+				String params = "(size=" + size + ", heap=" + heap + ")";
+				BenchmarkRunner.averageTime(args, "PriorityQueue.pushPop" + params, TimeUnit.MICROSECONDS, b::pushPop);
+				BenchmarkRunner.averageTime(args, "PriorityQueue.pushAllPop" + params, TimeUnit.MICROSECONDS, b::pushAllPop);
+				BenchmarkRunner.averageTime(args, "PriorityQueue.changePriority" + params, TimeUnit.MICROSECONDS,
+						b::changePriority);
+			}
+		}
+	}
+
+	public void setUp() {
+		Random random = new Random(42);
+		priorities = new int[size];
+		elements = new int[size];
+		lowered = new int[size];
+		for(int i=0; i<size; i++) {
+			priorities[i] = 1 + random.nextInt(1 << 20);
+			elements[i] = i;
+			lowered[i] = random.nextInt(priorities[i]);
+		}
+	}
+
+	public int pushPop() {
+		Heap q = newHeap();
+		for(int i=0; i<size; i++) {
+			q.push(priorities[i], elements[i]);
+		}
+		int last = 0;
+		while(!q.isEmpty()) {
+			last = q.topElement();
+			q.pop();
+		}
+		return last;
+	}
+
+	public int pushAllPop() {
+		Heap q = newHeap();
+		q.pushAll(priorities, elements);
+		int last = 0;
+		while(!q.isEmpty()) {
+			last = q.topElement();
+			q.pop();
+		}
+		return last;
+	}
+
+	public int changePriority() {
+		Heap q = newHeap();
+		q.pushAll(priorities, elements);
+		for(int i=0; i<size; i++) {
+			q.changePriority(lowered[i], elements[i]);
+		}
+		return q.topElement();
+	}
+
+	/**
+	 * Creates an empty queue of the benchmarked kind.
+	 * @return the queue
+	 */
+	private Heap newHeap() {
+		if(heap.equals("list")) {
+			final PriorityQueue q = new PriorityQueue();
+			return new Heap() {
+				public void push(int priority, int element) { q.push(priority, element); }
+				public void pushAll(int[] p, int[] e) { q.pushAll(p, e); }
+				public void pop() { q.pop(); }
+				public int topElement() { return q.topElement(); }
+				public void changePriority(int priority, int element) { q.changePriority(priority, element); }
+				public boolean isEmpty() { return q.isEmpty(); }
+			};
+		}
+		final IntPriorityQueue q = new IntPriorityQueue(heap.equals("quad") ? 4 : 2, size);
+		return new Heap() {
+			public void push(int priority, int element) { q.push(priority, element); }
+			public void pushAll(int[] p, int[] e) { q.pushAll(p, e); }
+			public void pop() { q.pop(); }
+			public int topElement() { return q.topElement(); }
+			public void changePriority(int priority, int element) { q.changePriority(priority, element); }
+			public boolean isEmpty() { return q.isEmpty(); }
+		};
+	}
+
+	/**
+	 * The queue operations shared by both queue classes.
+	 */
+	private interface Heap {
+		void push(int priority, int element);
+		void pushAll(int[] priorities, int[] elements);
+		void pop();
+		int topElement();
+		void changePriority(int priority, int element);
+		boolean isEmpty();
+	}
+}
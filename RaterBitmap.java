@@ -0,0 +1,230 @@
+package util;
+import java.util.Arrays;
+/**
+ * A compressed bitmap of non-negative ints in the style of Roaring bitmaps. Values
+ * are split by their high 16 bits into chunks of 65536. A chunk with up to 4096
+ * values keeps them as a sorted char array, a fuller chunk keeps a 65536-bit bitmap
+ * (8KB), so each chunk costs at most 2 bytes per value. Bitmaps are built once from
+ * sorted values and are read-only after that.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class RaterBitmap {
+   /**
+    * Largest number of values a chunk keeps as an array
+    */
+   public static final int ARRAY_LIMIT = 4096;
+   protected final int[] keys;// high 16 bits of each chunk, ascending
+   protected final char[][] arrays;// low 16 bits of an array chunk, null for a bitmap chunk
+   protected final long[][] bitmaps;// 1024 words of a bitmap chunk, null for an array chunk
+   protected final int[] cardinalities;
+   protected final int size;
+   
+   /**
+    * Constructs a bitmap from sorted values
+    *
+    * @param values sorted, non-negative values without duplicates
+    */
+   public RaterBitmap(int[] values) {
+      int chunks = 0;
+      for (int i = 0; i < values.length; i++) {
+         if (i == 0 || (values[i] >>> 16) != (values[i - 1] >>> 16)) {
+            chunks++;
+         }
+      }
+      keys = new int[chunks];
+      arrays = new char[chunks][];
+      bitmaps = new long[chunks][];
+      cardinalities = new int[chunks];
+      size = values.length;
+      int c = 0;
+      int start = 0;
+      while (start < values.length) {
+         int key = values[start] >>> 16;
+         int end = start;
+         while (end < values.length && (values[end] >>> 16) == key) {
+            end++;
+         }
+         keys[c] = key;
+         cardinalities[c] = end - start;
+         if (end - start <= ARRAY_LIMIT) {
+            arrays[c] = new char[end - start];
+            for (int i = start; i < end; i++) {
+               arrays[c][i - start] = (char) values[i];
+            }
+         } else {
+            bitmaps[c] = new long[1024];
+            for (int i = start; i < end; i++) {
+               int low = values[i] & 0xFFFF;
+               bitmaps[c][low >>> 6] |= 1L << low;
+            }
+         }
+         c++;
+         start = end;
+      }
+   }
+   
+   /**
+    * Returns the number of values in the bitmap
+    *
+    * @return number of values
+    */
+   public int size() {
+      return size;
+   }
+   
+   /**
+    * Returns true if the value is in the bitmap
+    *
+    * @param value value to look for
+    * @return true if the bitmap holds value
+    */
+   public boolean contains(int value) {
+      int c = Arrays.binarySearch(keys, value >>> 16);
+      if (c < 0) {
+         return false;
+      }
+      int low = value & 0xFFFF;
+      if (bitmaps[c] != null) {
+         return (bitmaps[c][low >>> 6] & (1L << low)) != 0;
+      }
+      return Arrays.binarySearch(arrays[c], (char) low) >= 0;
+   }
+   
+   /**
+    * Counts the values two bitmaps have in common
+    *
+    * @param other another bitmap
+    * @return size of the intersection
+    */
+   public int andCardinality(RaterBitmap other) {
+      return andCardinality(other, Integer.MAX_VALUE);
+   }
+   
+   /**
+    * Returns true if two bitmaps have at least k values in common. It stops once k
+    * are found, or once the chunks left could no longer make up the difference.
+    *
+    * @param other another bitmap
+    * @param k     number of common values needed
+    * @return true if the intersection has k or more values
+    */
+   public boolean andCardinalityAtLeast(RaterBitmap other, int k) {
+      int count = 0;
+      int i = 0;
+      int j = 0;
+      // values of each bitmap in the chunks not yet compared
+      int remaining = size;
+      int otherRemaining = other.size;
+      while (count < k) {
+         if (count + Math.min(remaining, otherRemaining) < k) {
+            return false;
+         }
+         if (keys[i] < other.keys[j]) {
+            remaining -= cardinalities[i++];
+         } else if (keys[i] > other.keys[j]) {
+            otherRemaining -= other.cardinalities[j++];
+         } else {
+            count += chunkAnd(i, other, j, k - count);
+            remaining -= cardinalities[i++];
+            otherRemaining -= other.cardinalities[j++];
+         }
+      }
+      return true;
+   }
+   
+   /**
+    * Counts the values two bitmaps have in common, stopping at limit
+    *
+    * @param other another bitmap
+    * @param limit count at which to stop
+    * @return size of the intersection, or limit if it is at least that big
+    */
+   public int andCardinality(RaterBitmap other, int limit) {
+      int count = 0;
+      int i = 0;
+      int j = 0;
+      while (i < keys.length && j < other.keys.length && count < limit) {
+         if (keys[i] < other.keys[j]) {
+            i++;
+         } else if (keys[i] > other.keys[j]) {
+            j++;
+         } else {
+            count += chunkAnd(i, other, j, limit - count);
+            i++;
+            j++;
+         }
+      }
+      return Math.min(count, limit);
+   }
+   
+   /**
+    * Counts the values two bitmaps have in common, one of them given as a sorted array
+    *
+    * @param values sorted values without duplicates
+    * @param limit  count at which to stop
+    * @return size of the intersection, or limit if it is at least that big
+    */
+   public int andCardinality(int[] values, int limit) {
+      int count = 0;
+      for (int i = 0; i < values.length && count < limit; i++) {
+         if (contains(values[i])) {
+            count++;
+         }
+      }
+      return Math.min(count, limit);
+   }
+   
+   /*********************************************************
+    * Private helper methods
+    *********************************************************/
+   /**
+    * Counts the common values of two chunks with the same key
+    *
+    * @param i     chunk of this bitmap
+    * @param other the other bitmap
+    * @param j     chunk of the other bitmap
+    * @param limit count at which the caller stops
+    * @return size of the intersection of the chunks, at most limit for array chunks
+    */
+   private int chunkAnd(int i, RaterBitmap other, int j, int limit) {
+      long[] bitsA = bitmaps[i];
+      long[] bitsB = other.bitmaps[j];
+      if (bitsA != null && bitsB != null) {
+         int count = 0;
+         for (int w = 0; w < 1024; w++) {
+            count += Long.bitCount(bitsA[w] & bitsB[w]);
+         }
+         return count;
+      }
+      if (bitsA != null || bitsB != null) {
+         long[] bits = bitsA != null ? bitsA : bitsB;
+         char[] array = bitsA != null ? other.arrays[j] : arrays[i];
+         int count = 0;
+         for (int k = 0; k < array.length && count < limit; k++) {
+            if ((bits[array[k] >>> 6] & (1L << array[k])) != 0) {
+               count++;
+            }
+         }
+         return count;
+      }
+      char[] a = arrays[i];
+      char[] b = other.arrays[j];
+      int count = 0;
+      int x = 0;
+      int y = 0;
+      while (x < a.length && y < b.length && count < limit) {
+         if (a[x] < b[y]) {
+            x++;
+         } else if (a[x] > b[y]) {
+            y++;
+         } else {
+            count++;
+            x++;
+            y++;
+         }
+      }
+      return count;
+   }
+}
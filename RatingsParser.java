@@ -0,0 +1,202 @@
+package data;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a MovieLens ratings file (userId,movieId,rating,timestamp) straight into a
+ * RatingsTable. The file is mapped in large chunks and the numbers are parsed from
+ * the bytes, so no String, array of fields or boxed value is made per rating.
+ * Repeated ratings of a movie by the same user are all read, and RatingsTable keeps
+ * the last of them.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class RatingsParser {
+	private static final long CHUNK_BYTES = 1L << 30;//largest mapping, lines never straddle one
+	private int[] userId;
+	private int[] movieId;
+	private byte[] halfStars;
+	private int count;
+	private long lines;//newlines passed so far, the line being parsed is lines+1
+	private int next;//position after the number readNumber last read
+
+	/**
+	 * Constructor for an empty parser.
+	 */
+	private RatingsParser() {
+		userId = new int[1 << 16];
+		movieId = new int[1 << 16];
+		halfStars = new byte[1 << 16];
+		count = 0;
+		lines = 0;
+	}
+
+	/**
+	 * Reads a ratings file. A first line that does not start with a digit is taken to
+	 * be the header and skipped.
+	 * @param ratingsFile path of the ratings csv file
+	 * @return the ratings grouped by movie
+	 * @throws IOException if the file cannot be read or a line is malformed
+	 */
+	public static RatingsTable parse(String ratingsFile) throws IOException {
+		return parse(Paths.get(ratingsFile));
+	}
+
+	/**
+	 * Reads a ratings file. A first line that does not start with a digit is taken to
+	 * be the header and skipped.
+	 * @param ratingsFile path of the ratings csv file
+	 * @return the ratings grouped by movie
+	 * @throws IOException if the file cannot be read or a line is malformed
+	 */
+	public static RatingsTable parse(Path ratingsFile) throws IOException {
+		RatingsParser parser = new RatingsParser();
+		try(FileChannel channel = FileChannel.open(ratingsFile, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			boolean first = true;
+			while(position < size) {
+				long length = Math.min(CHUNK_BYTES, size - position);
+				MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				boolean last = position + length == size;
+				int used = parser.parseLines(chunk, (int)length, first, last);
+				if(used == 0) {
+					throw new IOException("Line longer than " + CHUNK_BYTES + " bytes in " + ratingsFile);
+				}
+				position += used;
+				first = false;
+			}
+		}
+		return new RatingsTable(parser.userId, parser.movieId, parser.halfStars, parser.count);
+	}
+
+	/**
+	 * Parses every complete line of a chunk.
+	 * @param buf mapped chunk of the file
+	 * @param length number of bytes in the chunk
+	 * @param first true for the chunk at the start of the file
+	 * @param last true for the chunk at the end of the file, whose last line may lack a newline
+	 * @return number of bytes consumed, up to the start of the first incomplete line
+	 * @throws IOException if a line is malformed
+	 */
+	private int parseLines(MappedByteBuffer buf, int length, boolean first, boolean last) throws IOException {
+		int end = length;
+		if(!last) {
+			//stop after the last newline, the rest is parsed with the next chunk
+			while(end > 0 && buf.get(end-1) != '\n') {
+				end--;
+			}
+		}
+		int p = 0;
+		if(first && end > 0 && !isDigit(buf.get(0))) {
+			while(p < end && buf.get(p) != '\n') {
+				p++;
+			}
+			p++;
+			lines++;
+		}
+		while(p < end) {
+			byte c = buf.get(p);
+			if(c == '\n' || c == '\r') {
+				if(c == '\n') {
+					lines++;
+				}
+				p++;
+				continue;
+			}
+			if(count == userId.length) {
+				userId = Arrays.copyOf(userId, 2*count);
+				movieId = Arrays.copyOf(movieId, 2*count);
+				halfStars = Arrays.copyOf(halfStars, 2*count);
+			}
+			int user = readNumber(buf, p, end, "user ID");
+			p = expect(buf, next, end, ',');
+			int movie = readNumber(buf, p, end, "movie ID");
+			p = expect(buf, next, end, ',');
+			//rating as whole stars and an optional fraction, in half stars
+			int stars = readNumber(buf, p, end, "rating");
+			p = next;
+			if(stars > Byte.MAX_VALUE / 2) {
+				throw new IOException("The rating on line " + (lines+1) + " is too large");
+			}
+			int half = 2*stars;
+			if(p < end && buf.get(p) == '.') {
+				p++;
+				if(p < end && isDigit(c = buf.get(p)) && c >= '5') {
+					half++;
+				}
+				while(p < end && isDigit(buf.get(p))) {
+					p++;
+				}
+			}
+			//the timestamp is not kept
+			while(p < end && buf.get(p) != '\n') {
+				p++;
+			}
+			userId[count] = user;
+			movieId[count] = movie;
+			halfStars[count] = (byte)half;
+			count++;
+		}
+		return end;
+	}
+
+	/**
+	 * Checks that a separator comes next and steps over it.
+	 * @param buf mapped chunk of the file
+	 * @param p position of the separator
+	 * @param end end of the bytes being parsed
+	 * @param separator expected byte
+	 * @return position after the separator
+	 * @throws IOException if the separator is missing
+	 */
+	private int expect(MappedByteBuffer buf, int p, int end, char separator) throws IOException {
+		if(p >= end || buf.get(p) != separator) {
+			throw new IOException("Missing '" + separator + "' on line " + (lines+1));
+		}
+		return p + 1;
+	}
+
+	/**
+	 * Reads a run of digits as a non-negative int and sets next to the position after it.
+	 * @param buf mapped chunk of the file
+	 * @param p position of the first digit
+	 * @param end end of the bytes being parsed
+	 * @param field name of the field, for the error message
+	 * @return the number
+	 * @throws IOException if there is no digit or the number does not fit in an int
+	 */
+	private int readNumber(MappedByteBuffer buf, int p, int end, String field) throws IOException {
+		int start = p;
+		int value = 0;
+		byte c;
+		while(p < end && isDigit(c = buf.get(p))) {
+			int digit = c - '0';
+			if(value > (Integer.MAX_VALUE - digit) / 10) {
+				throw new IOException("The " + field + " on line " + (lines+1) + " is too large");
+			}
+			value = 10*value + digit;
+			p++;
+		}
+		if(p == start) {
+			throw new IOException("Missing " + field + " on line " + (lines+1));
+		}
+		next = p;
+		return value;
+	}
+
+	/**
+	 * Returns true if the byte is an ASCII digit
+	 * @param c byte to test
+	 * @return true for '0' to '9'
+	 */
+	private static boolean isDigit(byte c) {
+		return c >= '0' && c <= '9';
+	}
+}
@@ -0,0 +1,226 @@
+package data;
+import java.util.Arrays;
+import java.util.Map;
+import util.SortedIntersection;
+
+/**
+ * The ratings of every movie as a sorted int array of user IDs with a parallel byte
+ * array of half-star ratings (3.5 stars is 7). Counting the users two movies share is
+ * an intersection of two sorted arrays in SortedIntersection instead of a hash lookup
+ * per user.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class RatingsStore {
+	protected final int[] movieIds;//ascending
+	protected final int[][] raters;//user IDs of each movie, ascending
+	protected final byte[][] halfStars;//rating of each rater in half stars
+	private int[][] ratingKeys;//user*16 + half stars of each rater, built on first use
+
+	/**
+	 * Constructor for a store from its arrays. The arrays are not copied.
+	 * @param movieIds movie IDs in ascending order
+	 * @param raters sorted user IDs of each movie
+	 * @param halfStars half-star rating of each rater
+	 */
+	protected RatingsStore(int[] movieIds, int[][] raters, byte[][] halfStars) {
+		this.movieIds = movieIds;
+		this.raters = raters;
+		this.halfStars = halfStars;
+	}
+
+	/**
+	 * Builds a store from a columnar ratings table.
+	 * @param table ratings grouped by movie and sorted by user
+	 * @return the store
+	 */
+	public static RatingsStore fromTable(RatingsTable table) {
+		int m = table.numMovies();
+		int[] movieIds = Arrays.copyOf(table.movieIds, m);
+		int[][] raters = new int[m][];
+		byte[][] halfStars = new byte[m][];
+		for(int i=0; i<m; i++) {
+			raters[i] = Arrays.copyOfRange(table.userId, table.movieStart[i], table.movieStart[i+1]);
+			halfStars[i] = Arrays.copyOfRange(table.halfStars, table.movieStart[i], table.movieStart[i+1]);
+		}
+		return new RatingsStore(movieIds, raters, halfStars);
+	}
+
+	/**
+	 * Builds a store from the movies of a DataLoader. The ratings maps of the movies are
+	 * left as they are, so existing callers of Movie.getRatings are not affected.
+	 * @param movies movies by ID, as returned by DataLoader.getMovies
+	 * @return the store
+	 * @throws ClassCastException if a rating is not a number
+	 */
+	public static RatingsStore fromMovies(Map<Integer, Movie> movies) {
+		int m = movies.size();
+		int[] movieIds = new int[m];
+		int i = 0;
+		for(Integer id : movies.keySet()) {
+			movieIds[i++] = id;
+		}
+		Arrays.sort(movieIds);
+		int[][] raters = new int[m][];
+		byte[][] halfStars = new byte[m][];
+		for(i=0; i<m; i++) {
+			Map<Integer, ?> ratings = movies.get(movieIds[i]).getRatings();
+			long[] keys = new long[ratings.size()];
+			int k = 0;
+			for(Map.Entry<Integer, ?> rating : ratings.entrySet()) {
+				long half = Math.round(2 * ((Number)rating.getValue()).doubleValue());
+				keys[k++] = ((long)rating.getKey() << 8) | half;
+			}
+			//user in the high bits, so sorting the keys sorts by user
+			Arrays.sort(keys);
+			raters[i] = new int[k];
+			halfStars[i] = new byte[k];
+			for(int j=0; j<k; j++) {
+				raters[i][j] = (int)(keys[j] >> 8);
+				halfStars[i][j] = (byte)keys[j];
+			}
+		}
+		return new RatingsStore(movieIds, raters, halfStars);
+	}
+
+	/**
+	 * Returns the number of movies in the store.
+	 * @return number of movies
+	 */
+	public int numMovies() {
+		return movieIds.length;
+	}
+
+	/**
+	 * Returns the ID of the i-th movie in ascending order.
+	 * @param i index in 0..numMovies()-1
+	 * @return the movie ID
+	 */
+	public int movieIdAt(int i) {
+		return movieIds[i];
+	}
+
+	/**
+	 * Returns the index of a movie.
+	 * @param movieId movie ID
+	 * @return index of the movie, or a negative number if it is not in the store
+	 */
+	public int indexOf(int movieId) {
+		return Arrays.binarySearch(movieIds, movieId);
+	}
+
+	/**
+	 * Returns the users who rated a movie. The array must not be changed.
+	 * @param movieId movie ID
+	 * @return user IDs in ascending order
+	 * @throws IllegalArgumentException if the movie is not in the store
+	 */
+	public int[] raters(int movieId) {
+		return raters[checkedIndexOf(movieId)];
+	}
+
+	/**
+	 * Returns the ratings of a movie, in the order of raters(movieId). The array must not
+	 * be changed.
+	 * @param movieId movie ID
+	 * @return ratings in half stars
+	 * @throws IllegalArgumentException if the movie is not in the store
+	 */
+	public byte[] halfStars(int movieId) {
+		return halfStars[checkedIndexOf(movieId)];
+	}
+
+	/**
+	 * Returns the raters of a movie packed with their rating as user*16 + half stars,
+	 * see ratingKeys(). The array must not be changed.
+	 * @param movieId movie ID
+	 * @return packed ratings in ascending order
+	 * @throws IllegalArgumentException if the movie is not in the store
+	 */
+	public int[] ratingKeys(int movieId) {
+		return ratingKeys()[checkedIndexOf(movieId)];
+	}
+
+	/**
+	 * Counts the users who rated both movies.
+	 * @param movieA movie ID
+	 * @param movieB movie ID
+	 * @return number of shared raters
+	 * @throws IllegalArgumentException if either movie is not in the store
+	 */
+	public int commonRaters(int movieA, int movieB) {
+		int a = checkedIndexOf(movieA);
+		int b = checkedIndexOf(movieB);
+		return SortedIntersection.count(raters[a], raters[b]);
+	}
+
+	/**
+	 * Counts the users who gave both movies the same rating.
+	 * @param movieA movie ID
+	 * @param movieB movie ID
+	 * @return number of shared raters with equal ratings
+	 * @throws IllegalArgumentException if either movie is not in the store
+	 */
+	public int commonRatersWithEqualRating(int movieA, int movieB) {
+		int a = checkedIndexOf(movieA);
+		int b = checkedIndexOf(movieB);
+		int[][] keys = ratingKeys();
+		return SortedIntersection.count(keys[a], keys[b]);
+	}
+
+	/**
+	 * Returns true if two movies share at least k raters. It stops as soon as k are
+	 * found, like the sharedUsers>=12 check of the graph builders.
+	 * @param movieA movie ID
+	 * @param movieB movie ID
+	 * @param k number of shared raters needed
+	 * @param sameRating true if shared raters must also have given the same rating
+	 * @return true if the movies share k or more raters
+	 * @throws IllegalArgumentException if either movie is not in the store
+	 */
+	public boolean sharesAtLeast(int movieA, int movieB, int k, boolean sameRating) {
+		int a = checkedIndexOf(movieA);
+		int b = checkedIndexOf(movieB);
+		if(sameRating) {
+			int[][] keys = ratingKeys();
+			return SortedIntersection.atLeast(keys[a], keys[b], k);
+		}
+		return SortedIntersection.atLeast(raters[a], raters[b], k);
+	}
+
+	/**
+	 * Returns every movie's raters packed with their rating as user*16 + half stars.
+	 * The packed values sort like the users, and two are equal only when both the user
+	 * and the rating are, so a plain intersection of them counts equal ratings. User
+	 * IDs must be below 2^27, which MovieLens IDs are by far.
+	 * @return packed ratings of each movie, by movie index
+	 */
+	protected synchronized int[][] ratingKeys() {
+		if(ratingKeys == null) {
+			int[][] keys = new int[raters.length][];
+			for(int i=0; i<raters.length; i++) {
+				keys[i] = new int[raters[i].length];
+				for(int j=0; j<raters[i].length; j++) {
+					keys[i][j] = (raters[i][j] << 4) | halfStars[i][j];
+				}
+			}
+			ratingKeys = keys;
+		}
+		return ratingKeys;
+	}
+
+	/**
+	 * Finds the index of a movie that must be in the store.
+	 * @param movieId movie ID
+	 * @return index of the movie
+	 * @throws IllegalArgumentException if the movie is not in the store
+	 */
+	private int checkedIndexOf(int movieId) {
+		int index = indexOf(movieId);
+		if(index < 0) {
+			throw new IllegalArgumentException();
+		}
+		return index;
+	}
+}
@@ -0,0 +1,187 @@
+package data;
+import java.util.Arrays;
+
+/**
+ * Every rating in three parallel primitive arrays, grouped by movie. The ratings of
+ * the i-th movie in ascending movie ID order are rows movieStart[i] up to, but
+ * excluding, movieStart[i+1], sorted by user. Ratings are stored as half stars, so
+ * 3.5 stars is 7.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class RatingsTable {
+	protected final int[] movieIds;//distinct movie IDs, ascending
+	protected final int[] movieStart;//first row of each movie, length movieIds.length+1
+	protected final int[] userId;
+	protected final int[] movieId;
+	protected final byte[] halfStars;
+
+	/**
+	 * Constructor for a table from unsorted columns. The rows are sorted by movie and
+	 * then by user with two counting sorts, so the cost is linear in the number of
+	 * ratings plus the largest IDs. A user rates a movie at most once in the table: if
+	 * the columns hold several ratings of the same movie by the same user, only the
+	 * last of them, the one with the highest row number, is kept.
+	 * @param userId user of each rating, non-negative
+	 * @param movieId movie of each rating, non-negative
+	 * @param halfStars rating in half stars
+	 * @param count number of rows in use
+	 */
+	public RatingsTable(int[] userId, int[] movieId, byte[] halfStars, int count) {
+		int maxUser = 0;
+		int maxMovie = 0;
+		for(int r=0; r<count; r++) {
+			maxUser = Math.max(maxUser, userId[r]);
+			maxMovie = Math.max(maxMovie, movieId[r]);
+		}
+		int[] byUser = countingOrder(userId, null, count, maxUser);
+		int[] order = countingOrder(movieId, byUser, count, maxMovie);
+		//both sorts are stable, so repeated ratings of a pair are adjacent in row order
+		int kept = 0;
+		for(int r=0; r<count; r++) {
+			if(!repeatedLater(order, r, count, userId, movieId)) {
+				order[kept++] = order[r];
+			}
+		}
+		count = kept;
+
+		this.userId = new int[count];
+		this.movieId = new int[count];
+		this.halfStars = new byte[count];
+		int distinct = 0;
+		for(int r=0; r<count; r++) {
+			int from = order[r];
+			this.userId[r] = userId[from];
+			this.movieId[r] = movieId[from];
+			this.halfStars[r] = halfStars[from];
+			if(r == 0 || this.movieId[r] != this.movieId[r-1]) {
+				distinct++;
+			}
+		}
+		movieIds = new int[distinct];
+		movieStart = new int[distinct+1];
+		int m = -1;
+		for(int r=0; r<count; r++) {
+			if(r == 0 || this.movieId[r] != this.movieId[r-1]) {
+				m++;
+				movieIds[m] = this.movieId[r];
+				movieStart[m] = r;
+			}
+		}
+		movieStart[distinct] = count;
+	}
+
+	/**
+	 * Returns the number of ratings.
+	 * @return number of rows
+	 */
+	public int size() {
+		return userId.length;
+	}
+
+	/**
+	 * Returns the number of movies with at least one rating.
+	 * @return number of distinct movies
+	 */
+	public int numMovies() {
+		return movieIds.length;
+	}
+
+	/**
+	 * Returns the ID of the i-th rated movie in ascending order.
+	 * @param i index in 0..numMovies()-1
+	 * @return the movie ID
+	 */
+	public int movieIdAt(int i) {
+		return movieIds[i];
+	}
+
+	/**
+	 * Returns the first row of the i-th rated movie. Its rows run up to movieStart(i+1).
+	 * @param i index in 0..numMovies(), numMovies() gives the end of the table
+	 * @return the row number
+	 */
+	public int movieStart(int i) {
+		return movieStart[i];
+	}
+
+	/**
+	 * Returns the index of a movie among the rated movies.
+	 * @param id movie ID
+	 * @return index of the movie, or a negative number if nobody rated it
+	 */
+	public int indexOfMovie(int id) {
+		return Arrays.binarySearch(movieIds, id);
+	}
+
+	/**
+	 * Returns the user of a rating.
+	 * @param row row number
+	 * @return the user ID
+	 */
+	public int userId(int row) {
+		return userId[row];
+	}
+
+	/**
+	 * Returns the movie of a rating.
+	 * @param row row number
+	 * @return the movie ID
+	 */
+	public int movieId(int row) {
+		return movieId[row];
+	}
+
+	/**
+	 * Returns a rating in half stars.
+	 * @param row row number
+	 * @return twice the number of stars
+	 */
+	public int halfStars(int row) {
+		return halfStars[row];
+	}
+
+	/**
+	 * Stable counting sort of row numbers by a key column.
+	 * @param key key of each row
+	 * @param rows row numbers in their current order, or null for 0..count-1
+	 * @param count number of rows
+	 * @param maxKey largest key
+	 * @return the row numbers ordered by key, ties kept in their current order
+	 */
+	private static int[] countingOrder(int[] key, int[] rows, int count, int maxKey) {
+		int[] start = new int[maxKey+2];
+		for(int r=0; r<count; r++) {
+			start[key[r]+1]++;
+		}
+		for(int k=0; k<=maxKey; k++) {
+			start[k+1] += start[k];
+		}
+		int[] order = new int[count];
+		for(int i=0; i<count; i++) {
+			int r = rows == null ? i : rows[i];
+			order[start[key[r]]++] = r;
+		}
+		return order;
+	}
+
+	/**
+	 * Tells whether the next row in sorted order rates the same movie by the same user,
+	 * which makes this row a repeated rating that is replaced by a later one.
+	 * @param order row numbers sorted by movie and then by user
+	 * @param r position in order
+	 * @param count number of rows in order
+	 * @param userId user of each row
+	 * @param movieId movie of each row
+	 * @return true if order[r+1] has the same user and movie as order[r]
+	 */
+	private static boolean repeatedLater(int[] order, int r, int count, int[] userId, int[] movieId) {
+		if(r+1 == count) {
+			return false;
+		}
+		int a = order[r];
+		int b = order[r+1];
+		return userId[a] == userId[b] && movieId[a] == movieId[b];
+	}
+}
@@ -0,0 +1,187 @@
+package graph;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the shortest path trees of recently used sources, so that a path query from
+ * a source that was asked before is a walk up a parent array instead of a new
+ * search. Trees are evicted least recently used first once their total size passes a
+ * byte budget. When the cache watches a Graph, every query compares the graph's
+ * modCount with the one the trees were built for, and a change drops all trees and
+ * freezes the graph again. Queries are synchronized, so one cache can be shared by
+ * several threads, but only one tree is built at a time.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class ShortestPathCache {
+	/**
+	 * Default byte budget, enough for a few thousand trees of the movie graph.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 64L << 20;
+	protected final Graph<Integer> source;//null when built on a CSR graph, which cannot change
+	protected final long maxBytes;
+	protected final LinkedHashMap<Integer, ShortestPathTree> trees;//in access order
+	protected CSRGraph g;
+	protected int modCount;//modCount of source when g was frozen
+	protected long bytes;
+	protected long hits;
+	protected long misses;
+	protected long evictions;
+
+	/**
+	 * Constructor for a cache over a graph that may still change.
+	 * @param source graph of movieID's
+	 * @param maxBytes largest total size of the cached trees
+	 * @throws IllegalArgumentException if maxBytes is negative
+	 */
+	public ShortestPathCache(Graph<Integer> source, long maxBytes) {
+		this(source, CSRGraph.frozen(source), maxBytes);
+	}
+
+	/**
+	 * Constructor for a cache over an immutable graph.
+	 * @param g CSR graph of movieID's
+	 * @param maxBytes largest total size of the cached trees
+	 * @throws IllegalArgumentException if maxBytes is negative
+	 */
+	public ShortestPathCache(CSRGraph g, long maxBytes) {
+		this(null, g, maxBytes);
+	}
+
+	/**
+	 * Constructor for a cache.
+	 * @param source graph to watch for changes, or null
+	 * @param g frozen copy of source, or the graph itself
+	 * @param maxBytes largest total size of the cached trees
+	 * @throws IllegalArgumentException if maxBytes is negative
+	 */
+	private ShortestPathCache(Graph<Integer> source, CSRGraph g, long maxBytes) {
+		if(maxBytes < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.source = source;
+		this.g = g;
+		this.modCount = source == null ? 0 : source.modCount();
+		this.maxBytes = maxBytes;
+		trees = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns the shortest paths from a movie, from the cache if they are there.
+	 * @param from movie ID
+	 * @return the shortest path tree of from
+	 * @throws IllegalArgumentException if the movie does not occur in the graph
+	 */
+	public synchronized ShortestPathTree tree(int from) {
+		checkForChanges();
+		ShortestPathTree tree = trees.get(from);
+		if(tree != null) {
+			hits++;
+			return tree;
+		}
+		misses++;
+		tree = GraphAlgorithms.bfsTree(g, from);
+		long size = tree.sizeInBytes();
+		if(size <= maxBytes) {
+			trees.put(from, tree);
+			bytes += size;
+			evict();
+		}
+		return tree;
+	}
+
+	/**
+	 * Finds a shortest path between two movies.
+	 * @param from movie ID to start at
+	 * @param to movie ID to end at
+	 * @return movie ID's along the path from from to to, empty if there is no path
+	 * @throws IllegalArgumentException if either movie does not occur in the graph
+	 */
+	public int[] shortestPath(int from, int to) {
+		return tree(from).pathTo(to);
+	}
+
+	/**
+	 * Drops every cached tree. The counters are kept.
+	 */
+	public synchronized void invalidate() {
+		trees.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Returns the graph the cached trees were built on.
+	 * @return the CSR graph
+	 */
+	public synchronized CSRGraph getGraph() {
+		checkForChanges();
+		return g;
+	}
+
+	/**
+	 * Returns the number of queries answered from the cache.
+	 * @return number of hits
+	 */
+	public synchronized long hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of queries that had to build a tree.
+	 * @return number of misses
+	 */
+	public synchronized long misses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of trees dropped to stay under the byte budget.
+	 * @return number of evictions
+	 */
+	public synchronized long evictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the total size of the cached trees.
+	 * @return size in bytes
+	 */
+	public synchronized long sizeInBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of cached trees.
+	 * @return number of trees
+	 */
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	/**
+	 * Drops every tree and takes the graph's new CSR copy if it changed since the trees
+	 * were built. The copy is the one CSRGraph.frozen keeps on the graph, so the cache
+	 * does not hold a second copy of its own.
+	 */
+	private void checkForChanges() {
+		if(source != null && source.modCount() != modCount) {
+			invalidate();
+			g = CSRGraph.frozen(source);
+			modCount = source.modCount();
+		}
+	}
+
+	/**
+	 * Drops least recently used trees until the cache fits its byte budget.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<Integer, ShortestPathTree>> it = trees.entrySet().iterator();
+		while(bytes > maxBytes && it.hasNext()) {
+			bytes -= it.next().getValue().sizeInBytes();
+			it.remove();
+			evictions++;
+		}
+	}
+}
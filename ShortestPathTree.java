@@ -0,0 +1,92 @@
+package graph;
+
+/**
+ * Shortest paths from one source, kept as a distance array and a parent array over
+ * the dense indices of a CSR graph. Paths are read back by walking the parents.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class ShortestPathTree {
+	protected final CSRGraph g;
+	protected final int source;//dense index of the source
+	protected final int[] dist;//Integer.MAX_VALUE if unreachable
+	protected final int[] parent;//-1 for the source and unreachable vertices
+
+	/**
+	 * Constructor for a tree from its arrays. The arrays are not copied.
+	 * @param g graph the tree was computed on
+	 * @param source dense index of the source
+	 * @param dist distance to each dense index
+	 * @param parent dense index of each vertex's predecessor
+	 */
+	public ShortestPathTree(CSRGraph g, int source, int[] dist, int[] parent) {
+		this.g = g;
+		this.source = source;
+		this.dist = dist;
+		this.parent = parent;
+	}
+
+	/**
+	 * Returns the movie ID the paths start at.
+	 * @return the source vertex
+	 */
+	public int getSource() {
+		return g.vertexId(source);
+	}
+
+	/**
+	 * Returns the length of the shortest path to a movie.
+	 * @param target movie ID
+	 * @return the distance, Integer.MAX_VALUE if the target cannot be reached
+	 * @throws IllegalArgumentException if the target does not occur in the graph
+	 */
+	public int distanceTo(int target) {
+		return dist[checkedIndexOf(target)];
+	}
+
+	/**
+	 * Returns the shortest path to a movie.
+	 * @param target movie ID
+	 * @return movie ID's along the path from the source to target, empty if there is no path
+	 * @throws IllegalArgumentException if the target does not occur in the graph
+	 */
+	public int[] pathTo(int target) {
+		int t = checkedIndexOf(target);
+		if(dist[t] == Integer.MAX_VALUE) {
+			return new int[0];
+		}
+		int hops = 0;
+		for(int v=t; v!=source; v=parent[v]) {
+			hops++;
+		}
+		int[] path = new int[hops+1];
+		for(int v=t; hops>=0; v=parent[v]) {
+			path[hops--] = g.vertexId(v);
+		}
+		return path;
+	}
+
+	/**
+	 * Returns roughly how much memory the tree takes: the two arrays and the object
+	 * headers. The graph is shared and not counted.
+	 * @return size in bytes
+	 */
+	public long sizeInBytes() {
+		return 64 + 4L*dist.length + 4L*parent.length;
+	}
+
+	/**
+	 * Finds the dense index of a vertex that must be in the graph.
+	 * @param v vertex ID
+	 * @return index of v
+	 * @throws IllegalArgumentException if the vertex does not occur in the graph
+	 */
+	private int checkedIndexOf(int v) {
+		int index = g.indexOf(v);
+		if(index < 0) {
+			throw new IllegalArgumentException();
+		}
+		return index;
+	}
+}
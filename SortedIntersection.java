@@ -0,0 +1,154 @@
+package util;
+import java.util.Arrays;
+/**
+ * Counts the values two sorted int arrays without duplicates have in common. There
+ * are three kernels: a scalar merge, a galloping search for lists of very different
+ * sizes, and a SIMD block compare built on the jdk.incubator.vector module, which is
+ * used only when that module is present (run with --add-modules jdk.incubator.vector).
+ * Every kernel takes a limit and stops as soon as that many matches are found, so
+ * "do these movies share at least 12 users" costs no more than finding 12 of them.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class SortedIntersection {
+   /**
+    * Size ratio of the two arrays above which count uses the galloping kernel
+    */
+   public static final int GALLOP_RATIO = 32;
+   /**
+    * True if the vector module was found and count uses the SIMD kernel
+    */
+   public static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+   
+   /**
+    * Counts the common values of two sorted arrays with the best kernel for their sizes
+    *
+    * @param a sorted array without duplicates
+    * @param b sorted array without duplicates
+    * @return size of the intersection
+    */
+   public static int count(int[] a, int[] b) {
+      return count(a, b, Integer.MAX_VALUE);
+   }
+   
+   /**
+    * Returns true if two sorted arrays have at least k values in common
+    *
+    * @param a sorted array without duplicates
+    * @param b sorted array without duplicates
+    * @param k number of common values needed
+    * @return true if the intersection has k or more values
+    */
+   public static boolean atLeast(int[] a, int[] b, int k) {
+      return count(a, b, k) >= k;
+   }
+   
+   /**
+    * Counts the common values of two sorted arrays, stopping at limit
+    *
+    * @param a     sorted array without duplicates
+    * @param b     sorted array without duplicates
+    * @param limit count at which to stop
+    * @return size of the intersection, or limit if it is at least that big
+    */
+   public static int count(int[] a, int[] b, int limit) {
+      if (a.length > b.length) {
+         int[] swap = a;
+         a = b;
+         b = swap;
+      }
+      if ((long) a.length * GALLOP_RATIO < b.length) {
+         return gallopingCount(a, b, limit);
+      }
+      if (VECTORIZED) {
+         return VectorIntersection.count(a, b, limit);
+      }
+      return scalarCount(a, b, limit);
+   }
+   
+   /**
+    * SIMD kernel, without the choice of kernel that count makes
+    *
+    * @param a     sorted array without duplicates
+    * @param b     sorted array without duplicates
+    * @param limit count at which to stop
+    * @return size of the intersection, or limit if it is at least that big
+    * @throws UnsupportedOperationException if the vector module is not present
+    */
+   public static int vectorizedCount(int[] a, int[] b, int limit) {
+      if (VECTORIZED == false) {
+         throw new UnsupportedOperationException("run with --add-modules jdk.incubator.vector");
+      }
+      return VectorIntersection.count(a, b, limit);
+   }
+   
+   /**
+    * Merge kernel: walks both arrays once
+    *
+    * @param a     sorted array without duplicates
+    * @param b     sorted array without duplicates
+    * @param limit count at which to stop
+    * @return size of the intersection, or limit if it is at least that big
+    */
+   public static int scalarCount(int[] a, int[] b, int limit) {
+      return scalarCount(a, 0, b, 0, 0, limit);
+   }
+   
+   /**
+    * Merge kernel over the tails of two arrays
+    *
+    * @param a     sorted array without duplicates
+    * @param i     first index of a to look at
+    * @param b     sorted array without duplicates
+    * @param j     first index of b to look at
+    * @param count matches found before i and j
+    * @param limit count at which to stop
+    * @return count plus the size of the intersection of the tails, or limit
+    */
+   static int scalarCount(int[] a, int i, int[] b, int j, int count, int limit) {
+      while (i < a.length && j < b.length && count < limit) {
+         if (a[i] < b[j]) {
+            i++;
+         } else if (a[i] > b[j]) {
+            j++;
+         } else {
+            count++;
+            i++;
+            j++;
+         }
+      }
+      return count;
+   }
+   
+   /**
+    * Galloping kernel: finds each value of the shorter array in the longer one with an
+    * exponential search from the last match, which costs O(|a| log(|b|/|a|))
+    *
+    * @param a     the shorter sorted array
+    * @param b     the longer sorted array
+    * @param limit count at which to stop
+    * @return size of the intersection, or limit if it is at least that big
+    */
+   public static int gallopingCount(int[] a, int[] b, int limit) {
+      int count = 0;
+      int low = 0;
+      for (int i = 0; i < a.length && low < b.length && count < limit; i++) {
+         int step = 1;
+         int high = low;
+         while (high < b.length && b[high] < a[i]) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+         }
+         int found = Arrays.binarySearch(b, low, Math.min(high + 1, b.length), a[i]);
+         if (found >= 0) {
+            count++;
+            low = found + 1;
+         } else {
+            low = -found - 1;
+         }
+      }
+      return count;
+   }
+}
@@ -0,0 +1,132 @@
+package bench;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import data.*;
+
+/**
+ * Writes MovieLens-shaped movies.csv and ratings.csv files from a seed, so that the
+ * benchmarks need no download and every run sees the same data. Movie popularity
+ * falls off like a power law, as in MovieLens: the movie of rank r is picked about
+ * 1/r^SKEW as often as the most popular one, so a few movies have thousands of raters
+ * and most have a handful. Each user rates between 1 and twice the average number of
+ * distinct movies, in half stars from 0.5 to 5.0 leaning toward 3 and 4 stars.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class SyntheticRatings {
+	/**
+	 * Exponent of the popularity curve.
+	 */
+	public static final double SKEW = 1.1;
+	private static final double[] STARS = {0.5, 1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 4.0, 4.5, 5.0};
+	private static final int[] STAR_WEIGHTS = {1, 3, 2, 7, 5, 20, 12, 27, 8, 15};
+
+	/**
+	 * Writes movies.csv and ratings.csv into a directory.
+	 * @param dir directory for the files, which must exist
+	 * @param movies number of movies, with IDs 1 to movies
+	 * @param users number of users, with IDs 1 to users
+	 * @param ratingsPerUser average number of movies each user rates
+	 * @param seed seed of the random numbers
+	 * @throws IOException if a file cannot be written
+	 */
+	public static void write(Path dir, int movies, int users, int ratingsPerUser, long seed) throws IOException {
+		Random random = new Random(seed);
+		try(BufferedWriter out = Files.newBufferedWriter(dir.resolve("movies.csv"))) {
+			out.write("movieId,title,genres\n");
+			for(int m=1; m<=movies; m++) {
+				out.write(m + ",Movie " + m + " (2000),Drama\n");
+			}
+		}
+
+		double[] cumulative = popularity(movies);
+		int starTotal = 0;
+		for(int w : STAR_WEIGHTS) {
+			starTotal += w;
+		}
+		boolean[] rated = new boolean[movies+1];
+		int[] picked = new int[movies];
+		try(BufferedWriter out = Files.newBufferedWriter(dir.resolve("ratings.csv"))) {
+			out.write("userId,movieId,rating,timestamp\n");
+			for(int u=1; u<=users; u++) {
+				int count = Math.min(movies, 1 + random.nextInt(2*ratingsPerUser));
+				int found = 0;
+				while(found < count) {
+					int m = pick(cumulative, random.nextDouble());
+					if(!rated[m]) {
+						rated[m] = true;
+						picked[found++] = m;
+					}
+				}
+				for(int i=0; i<found; i++) {
+					int w = random.nextInt(starTotal);
+					int s = 0;
+					while(w >= STAR_WEIGHTS[s]) {
+						w -= STAR_WEIGHTS[s++];
+					}
+					out.write(u + "," + picked[i] + "," + STARS[s] + "," + (1_000_000_000L + u) + "\n");
+					rated[picked[i]] = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the files into a new temporary directory and loads them.
+	 * @param movies number of movies
+	 * @param users number of users
+	 * @param ratingsPerUser average number of movies each user rates
+	 * @param seed seed of the random numbers
+	 * @return a loader holding the ratings
+	 * @throws IOException if the files cannot be written
+	 */
+	public static DataLoader load(int movies, int users, int ratingsPerUser, long seed) throws IOException {
+		Path dir = Files.createTempDirectory("movielens");
+		write(dir, movies, users, ratingsPerUser, seed);
+		DataLoader loader = new DataLoader();
+		loader.loadData(dir.resolve("movies.csv").toString(), dir.resolve("ratings.csv").toString());
+		return loader;
+	}
+
+	/**
+	 * Returns the cumulative probability of picking each movie.
+	 * @param movies number of movies
+	 * @return entry m-1 is the chance of picking a movie with ID at most m
+	 */
+	private static double[] popularity(int movies) {
+		double[] cumulative = new double[movies];
+		double total = 0;
+		for(int m=1; m<=movies; m++) {
+			total += 1 / Math.pow(m, SKEW);
+			cumulative[m-1] = total;
+		}
+		for(int m=0; m<movies; m++) {
+			cumulative[m] /= total;
+		}
+		return cumulative;
+	}
+
+	/**
+	 * Picks a movie by its popularity.
+	 * @param cumulative cumulative probabilities from popularity
+	 * @param x uniform number in [0, 1)
+	 * @return movie ID
+	 */
+	private static int pick(double[] cumulative, double x) {
+		int low = 0;
+		int high = cumulative.length - 1;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(cumulative[mid] <= x) {
+				low = mid + 1;
+			}else {
+				high = mid;
+			}
+		}
+		return low + 1;
+	}
+}
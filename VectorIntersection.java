@@ -0,0 +1,70 @@
+package util;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+/**
+ * SIMD intersection count over sorted int arrays. A block of a is compared against
+ * every rotation of a block of b, which finds all equal pairs of the two blocks in
+ * one vector compare per lane, and then whichever block ends lower is moved on. This
+ * class needs the jdk.incubator.vector module, both to compile and to run, and is
+ * only reached through SortedIntersection when the module is present.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+class VectorIntersection {
+   private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+   private static final int LANES = SPECIES.length();
+   private static final VectorShuffle<Integer>[] ROTATIONS = rotations();
+   
+   /**
+    * Counts the common values of two sorted arrays, stopping at limit
+    *
+    * @param a     sorted array without duplicates
+    * @param b     sorted array without duplicates
+    * @param limit count at which to stop
+    * @return size of the intersection, or limit if it is at least that big
+    */
+   static int count(int[] a, int[] b, int limit) {
+      int i = 0;
+      int j = 0;
+      int count = 0;
+      while (i + LANES <= a.length && j + LANES <= b.length && count < limit) {
+         IntVector va = IntVector.fromArray(SPECIES, a, i);
+         IntVector vb = IntVector.fromArray(SPECIES, b, j);
+         VectorMask<Integer> match = va.compare(VectorOperators.EQ, vb);
+         for (int r = 1; r < LANES; r++) {
+            match = match.or(va.compare(VectorOperators.EQ, vb.rearrange(ROTATIONS[r])));
+         }
+         count += match.trueCount();
+         int lastA = a[i + LANES - 1];
+         int lastB = b[j + LANES - 1];
+         if (lastA <= lastB) {
+            i += LANES;
+         }
+         if (lastB <= lastA) {
+            j += LANES;
+         }
+      }
+      if (count >= limit) {
+         return limit;
+      }
+      return SortedIntersection.scalarCount(a, i, b, j, count, limit);
+   }
+   
+   /**
+    * Builds the shuffles that rotate a vector left by 0 to LANES-1 lanes
+    *
+    * @return the rotation for each lane count
+    */
+   @SuppressWarnings("unchecked")
+   private static VectorShuffle<Integer>[] rotations() {
+      VectorShuffle<Integer>[] rotations = (VectorShuffle<Integer>[]) new VectorShuffle<?>[LANES];
+      for (int r = 0; r < LANES; r++) {
+         rotations[r] = VectorShuffle.iota(SPECIES, r, 1, true);
+      }
+      return rotations;
+   }
+}
@@ -0,0 +1,85 @@
+package graph;
+import java.util.Arrays;
+
+/**
+ * Maps vertex IDs to dense indices 0..n-1 and back. MovieLens IDs are sparse and go
+ * above 200,000, so algorithms that keep an array entry per vertex work on the dense
+ * indices and translate IDs only when they are given or return one. IDs are looked
+ * up in an open-addressing hash table of ints, which costs one or two probes instead
+ * of the log n steps of a binary search.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+public class VertexIndex {
+	protected final int[] ids;//dense index to ID
+	private final int[] slotIds;//ID in each hash slot
+	private final int[] slotIndices;//dense index in each hash slot, -1 if the slot is free
+	private final int mask;
+
+	/**
+	 * Constructor for an index of distinct IDs. The array is not copied.
+	 * @param ids the ID of every dense index
+	 * @throws IllegalArgumentException if an ID occurs twice
+	 */
+	public VertexIndex(int[] ids) {
+		this.ids = ids;
+		int slots = Integer.highestOneBit(Math.max(4, ids.length*2 - 1)) << 1;
+		slotIds = new int[slots];
+		slotIndices = new int[slots];
+		Arrays.fill(slotIndices, -1);
+		mask = slots - 1;
+		for(int i=0; i<ids.length; i++) {
+			int s = slot(ids[i]);
+			while(slotIndices[s] >= 0) {
+				if(slotIds[s] == ids[i]) {
+					throw new IllegalArgumentException();
+				}
+				s = (s+1) & mask;
+			}
+			slotIds[s] = ids[i];
+			slotIndices[s] = i;
+		}
+	}
+
+	/**
+	 * Returns the dense index of an ID.
+	 * @param id vertex ID
+	 * @return index in 0..n-1, or -1 if the ID is not in the index
+	 */
+	public int indexOf(int id) {
+		for(int s=slot(id); slotIndices[s] >= 0; s=(s+1) & mask) {
+			if(slotIds[s] == id) {
+				return slotIndices[s];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the ID at a dense index.
+	 * @param index index in 0..n-1
+	 * @return the vertex ID
+	 */
+	public int idOf(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * Returns the number of IDs in the index.
+	 * @return n
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Finds the first hash slot to probe for an ID.
+	 * @param id vertex ID
+	 * @return slot index
+	 */
+	private int slot(int id) {
+		int h = id * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
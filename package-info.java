@@ -0,0 +1,15 @@
+/**
+ * Benchmarks of the heaps, the graph classes, the path algorithms and the graph
+ * builders, with SyntheticRatings and BenchmarkGraphs as their deterministic input.
+ * <p>
+ * The benchmarks need no library: BenchmarkRunner warms each one up, times it and
+ * prints the result, and every benchmark class has a main method that runs all of its
+ * benchmarks, or those named by its arguments. They compile with the rest of the
+ * sources, on JDK 21 or later, which analyzer.BatchQueryRunner needs for virtual
+ * threads, with --add-modules jdk.incubator.vector, which util.VectorIntersection
+ * uses. The same options are needed to run them.
+ *
+ * @author Gennie Cheatham, Sarah McClain
+ *
+ */
+package bench;